@@ -0,0 +1,164 @@
+import java.io.IOException;
+
+/**
+ * Counts the words of a text approximately, in a fixed amount of memory,
+ * for texts with too many different words to count exactly.  Half of the
+ * memory budget goes to a CountMinSketch, which estimates the frequency
+ * of any word, and half to a SpaceSaving summary, which keeps the most
+ * frequent words.  No String is made for a word unless it becomes one of
+ * the words being kept.  A HyperLogLog, which takes 4 KB, estimates how
+ * many different words there are.
+ *
+ * Every estimate is an upper bound on the true frequency.  For a word the
+ * SpaceSaving summary keeps, the lower bound is exact; for any other word
+ * it holds with the confidence of the sketch.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class ApproximateCounter implements TokenSink
+{
+    /** The memory budget used when the caller does not give one. */
+    public static final long DEFAULT_BUDGET = 64L << 20;
+
+    // the rows of the sketch; each estimate holds with probability 1 - e^-4
+    private static final int DEPTH = 4;
+    // about how many bytes a SpaceSaving counter and its word take
+    private static final int BYTES_PER_COUNTER = 100;
+
+    private final CountMinSketch sketch;
+    private final SpaceSaving heavy;
+    private final HyperLogLog distinct;
+
+    /**
+     * Constructor for objects of class ApproximateCounter.
+     *
+     * @param memoryBudget  about how many bytes the counts may use
+     */
+    public ApproximateCounter(long memoryBudget)
+    {
+        if (memoryBudget <= 0)
+            throw new IllegalArgumentException("memory budget must be positive: " + memoryBudget);
+        sketch = new CountMinSketch(memoryBudget / 2, DEPTH);
+        heavy = new SpaceSaving((int) Math.max(1, Math.min(1 << 28,
+                                memoryBudget / 2 / BYTES_PER_COUNTER)));
+        distinct = new HyperLogLog();
+    }
+
+    /**
+     * Counts the words of a file approximately.
+     *
+     * @param fileName      the pathname of the file
+     * @param memoryBudget  about how many bytes the counts may use
+     * @return              the counts
+     * @throws IOException  file is not found
+     */
+    public static ApproximateCounter count(String fileName, long memoryBudget) throws IOException
+    {
+        ApproximateCounter counter = new ApproximateCounter(memoryBudget);
+        new ByteTokenizer().tokenize(fileName, counter);
+        return counter;
+    }
+
+    /**
+     * Counts the next word of the text.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     */
+    public void token(byte[] buf, int off, int len, long position)
+    {
+        int hash = WordCounter.hash(buf, off, len);
+        sketch.add(hash);
+        heavy.add(buf, off, len, hash);
+        distinct.add(buf, off, len);
+    }
+
+    /**
+     * Estimates how often txt appeared.
+     *
+     * @param txt  the word
+     * @return     an estimate that is never below the true frequency
+     */
+    public long estimate(String txt)
+    {
+        long kept = heavy.getCount(txt);
+        long sketched = sketch.estimate(txt);
+        return kept < 0 ? sketched : Math.min(kept, sketched);
+    }
+
+    /**
+     * Returns the smallest frequency txt can have, given its estimate.
+     *
+     * @param txt  the word
+     * @return     a lower bound on the true frequency; it is certain when
+     *             isExact(txt), and otherwise holds with probability
+     *             getConfidence()
+     */
+    public long lowerBound(String txt)
+    {
+        long kept = heavy.getCount(txt);
+        if (kept >= 0)
+            return kept - heavy.getError(txt);
+        return Math.max(0, sketch.estimate(txt) - sketch.getErrorBound());
+    }
+
+    /**
+     * Returns whether the bounds on txt are certain, which they are for
+     * the words the heavy-hitter summary keeps.
+     *
+     * @param txt  the word
+     * @return     true if txt is one of the words being kept
+     */
+    public boolean isExact(String txt)
+    {
+        return heavy.getCount(txt) >= 0;
+    }
+
+    /**
+     * Returns the probability that a bound that is not certain holds.
+     *
+     * @return the confidence of the sketch
+     */
+    public double getConfidence()
+    {
+        return sketch.getConfidence();
+    }
+
+    /**
+     * Makes a WordCounter of the words the heavy-hitter summary keeps,
+     * with their estimated frequencies, so they can be printed, sorted and
+     * searched by a WordAnalysis.
+     *
+     * @return the most frequent words and their estimated counts
+     */
+    public WordCounter toWordCounter()
+    {
+        WordCounter result = new WordCounter(heavy.size());
+        for (Word w : heavy.topWords(heavy.size()))
+            result.add(w.getWord(), (int) Math.min(Integer.MAX_VALUE, estimate(w.getWord())));
+        return result;
+    }
+
+    /**
+     * Returns the estimator of the number of different words read.
+     *
+     * @return the HyperLogLog fed with every word
+     */
+    public HyperLogLog getDistinct()
+    {
+        return distinct;
+    }
+
+    /**
+     * Returns the number of words read.
+     *
+     * @return the number of words, repetitions included
+     */
+    public long getTotal()
+    {
+        return sketch.getTotal();
+    }
+}
@@ -0,0 +1,352 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compares the books of a corpus by the words they use.  Each book
+ * becomes a TF-IDF vector: the weight of a word is how often it appears
+ * in the book (its term frequency, as a share of the words of the book)
+ * times the log of how rare it is among the books (its inverse document
+ * frequency).  Words every book uses get no weight, and words only one
+ * book uses get the most, so the heaviest words of a book are the ones
+ * that set it apart.
+ *
+ * Books are compared by the cosine of their vectors.  The vectors are
+ * sparse and indexed by the word ids of the corpus totals, so comparing
+ * two books is a merge of their sorted ids.  All the pairs are compared
+ * in parallel on a ForkJoinPool, one row of the triangle per task, and
+ * only the best pairs are kept, so no n by n matrix is ever made.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class BookSimilarity
+{
+    private final CorpusAnalysis corpus;
+    private final SparseVector[] vectors;   // vectors[i] is the vector of book i
+    private final int[] bookFrequency;      // books each word id of the totals appears in
+
+    /**
+     * Constructor for the TF-IDF vectors of every book of a corpus.
+     *
+     * @param corpus  the books
+     */
+    public BookSimilarity(CorpusAnalysis corpus)
+    {
+        this.corpus = corpus;
+        WordCounter totals = corpus.getTotals();
+        int n = corpus.size();
+
+        // map every book's ids to the ids of the totals, and count the
+        // books each word appears in
+        int[][] global = new int[n][];
+        bookFrequency = new int[totals.size()];
+        for (int b = 0; b < n; b++)
+        {
+            WordCounter book = corpus.getCounts(b);
+            global[b] = new int[book.size()];
+            for (int id = 0; id < book.size(); id++)
+            {
+                int g = totals.indexOf(book.wordAt(id));
+                global[b][id] = g;
+                bookFrequency[g]++;
+            }
+        }
+
+        vectors = new SparseVector[n];
+        for (int b = 0; b < n; b++)
+        {
+            WordCounter book = corpus.getCounts(b);
+            // sort the ids of the totals, carrying the book's own ids along
+            long[] order = new long[book.size()];
+            for (int id = 0; id < order.length; id++)
+                order[id] = ((long) global[b][id] << 32) | id;
+            Arrays.sort(order);
+
+            int[] ids = new int[order.length];
+            float[] weights = new float[order.length];
+            int kept = 0;
+            for (long entry : order)
+            {
+                int g = (int) (entry >>> 32);
+                double tf = book.countAt((int) entry) / (double) book.getTotal();
+                double idf = Math.log((double) n / bookFrequency[g]);
+                if (idf > 0)
+                {
+                    ids[kept] = g;
+                    weights[kept] = (float) (tf * idf);
+                    kept++;
+                }
+            }
+            vectors[b] = new SparseVector(Arrays.copyOf(ids, kept), Arrays.copyOf(weights, kept));
+        }
+    }
+
+    /**
+     * Returns the TF-IDF vector of a book, indexed by the word ids of the
+     * corpus totals.
+     *
+     * @param book  the number of the book, from 0
+     * @return      its vector
+     */
+    public SparseVector getVector(int book)
+    {
+        return vectors[book];
+    }
+
+    /**
+     * Returns how many books a word appears in.
+     *
+     * @param txt  the word
+     * @return     the number of books that use it
+     */
+    public int getBookFrequency(String txt)
+    {
+        int id = corpus.getTotals().indexOf(txt);
+        return id < 0 ? 0 : bookFrequency[id];
+    }
+
+    /**
+     * Returns the cosine similarity of two books.
+     *
+     * @param a  the number of one book
+     * @param b  the number of another book
+     * @return   from 0, no distinctive word in common, to 1
+     */
+    public double similarity(int a, int b)
+    {
+        return vectors[a].cosine(vectors[b]);
+    }
+
+    /**
+     * Finds the words that set a book apart: those with the largest
+     * TF-IDF weight.
+     *
+     * @param book  the number of the book, from 0
+     * @param k     the number of words wanted
+     * @return      up to k words, the most distinctive first; words that
+     *              tie are in order of id
+     */
+    public String[] distinctiveWords(int book, int k)
+    {
+        SparseVector v = vectors[book];
+        int[] best = TopK.select(v.size(), k, (x, y) ->
+            v.weightAt(x) != v.weightAt(y) ? v.weightAt(x) > v.weightAt(y) : x < y);
+        String[] words = new String[best.length];
+        for (int i = 0; i < best.length; i++)
+            words[i] = corpus.getTotals().wordAt(v.idAt(best[i]));
+        return words;
+    }
+
+    /**
+     * Finds the books most like a book.
+     *
+     * @param book  the number of the book, from 0
+     * @param k     the number of books wanted
+     * @return      up to k other books, the most similar first
+     */
+    public ArrayList<Pair> mostSimilar(int book, int k)
+    {
+        double[] found = new double[vectors.length];
+        for (int other = 0; other < vectors.length; other++)
+            found[other] = other == book ? -1 : similarity(book, other);
+        int[] best = TopK.select(vectors.length, Math.min(k, vectors.length - 1), (x, y) ->
+            found[x] != found[y] ? found[x] > found[y] : x < y);
+        ArrayList<Pair> result = new ArrayList<Pair>(best.length);
+        for (int other : best)
+            result.add(new Pair(book, other, found[other]));
+        return result;
+    }
+
+    /**
+     * Compares every pair of books on all the cores and keeps the most
+     * similar pairs.
+     *
+     * @param k  the number of pairs wanted
+     * @return   up to k pairs, the most similar first
+     */
+    public ArrayList<Pair> mostSimilarPairs(int k)
+    {
+        return mostSimilarPairs(k, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compares every pair of books with the threads of pool and keeps the
+     * most similar pairs.
+     *
+     * @param k     the number of pairs wanted
+     * @param pool  the pool that runs the comparisons
+     * @return      up to k pairs, the most similar first; pairs that tie
+     *              are in order of their books
+     */
+    public ArrayList<Pair> mostSimilarPairs(int k, ForkJoinPool pool)
+    {
+        if (k <= 0 || vectors.length < 2)
+            return new ArrayList<Pair>();
+        return pool.invoke(new PairTask(this, 0, vectors.length - 1, k));
+    }
+
+    /**
+     * Keeps the k best of a list of pairs.
+     */
+    private static ArrayList<Pair> best(ArrayList<Pair> pairs, int k)
+    {
+        int[] best = TopK.select(pairs.size(), k, (x, y) -> pairs.get(x).ranksBefore(pairs.get(y)));
+        ArrayList<Pair> result = new ArrayList<Pair>(best.length);
+        for (int i : best)
+            result.add(pairs.get(i));
+        return result;
+    }
+
+    /**
+     * Two books and their cosine similarity.
+     */
+    public static class Pair
+    {
+        private final int book;
+        private final int other;
+        private final double similarity;
+
+        /**
+         * Constructor for a pair of books.
+         *
+         * @param book        the number of one book
+         * @param other       the number of the other book
+         * @param similarity  their cosine similarity
+         */
+        public Pair(int book, int other, double similarity)
+        {
+            this.book = book;
+            this.other = other;
+            this.similarity = similarity;
+        }
+
+        /**
+         * Returns the number of the first book.
+         *
+         * @return the number of the first book
+         */
+        public int getBook()
+        {
+            return book;
+        }
+
+        /**
+         * Returns the number of the second book.
+         *
+         * @return the number of the second book
+         */
+        public int getOther()
+        {
+            return other;
+        }
+
+        /**
+         * Returns the cosine similarity of the books.
+         *
+         * @return the similarity, from 0 to 1
+         */
+        public double getSimilarity()
+        {
+            return similarity;
+        }
+
+        /**
+         * Returns whether this pair is more similar than another, or as
+         * similar and earlier in order of books.
+         */
+        boolean ranksBefore(Pair p)
+        {
+            if (similarity != p.similarity)
+                return similarity > p.similarity;
+            if (book != p.book)
+                return book < p.book;
+            return other < p.other;
+        }
+
+        /**
+         * Returns the pair as "book other similarity".
+         *
+         * @return the pair as a String
+         */
+        public String toString()
+        {
+            return book + " " + other + " " + similarity;
+        }
+    }
+
+    /**
+     * Compares the books first .. last-1 with every book after them,
+     * splitting the rows between two subtasks when there is more than
+     * one.  A row of book i has n - 1 - i pairs, so the early rows are the
+     * longest; the pool's work stealing evens the load.
+     */
+    private static class PairTask extends RecursiveTask<ArrayList<Pair>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final BookSimilarity books;
+        private final int first;
+        private final int last;
+        private final int k;
+
+        PairTask(BookSimilarity books, int first, int last, int k)
+        {
+            this.books = books;
+            this.first = first;
+            this.last = last;
+            this.k = k;
+        }
+
+        @Override
+        protected ArrayList<Pair> compute()
+        {
+            if (last - first == 1)
+            {
+                int n = books.vectors.length;
+                ArrayList<Pair> row = new ArrayList<Pair>(n - 1 - first);
+                for (int other = first + 1; other < n; other++)
+                    row.add(new Pair(first, other, books.similarity(first, other)));
+                return best(row, k);
+            }
+            int mid = (first + last) / 2;
+            PairTask left = new PairTask(books, first, mid, k);
+            PairTask right = new PairTask(books, mid, last, k);
+            left.fork();
+            ArrayList<Pair> pairs = right.compute();
+            pairs.addAll(left.join());
+            return best(pairs, k);
+        }
+    }
+
+    /**
+     * Prints the most similar pairs of books in a directory, and the most
+     * distinctive words of each book.
+     *
+     * @param  args  the pathname of the directory, and optionally the
+     *               number of pairs (10 by default)
+     * @throws java.io.IOException  if the directory cannot be read
+     */
+    public static void main(String[] args) throws java.io.IOException
+    {
+        String directory = args.length > 0 ? args[0] : ".";
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        CorpusAnalysis corpus = CorpusAnalysis.build(directory);
+        long start = System.nanoTime();
+        BookSimilarity books = new BookSimilarity(corpus);
+        long vectorized = System.nanoTime();
+        ArrayList<Pair> pairs = books.mostSimilarPairs(k);
+        long compared = System.nanoTime();
+        System.out.printf("%d books: vectors %.1f ms, %d pairs compared in %.1f ms\n",
+                          corpus.size(), (vectorized - start) / 1e6,
+                          corpus.size() * (corpus.size() - 1L) / 2, (compared - vectorized) / 1e6);
+        for (Pair p : pairs)
+        {
+            System.out.printf("%.4f  %s  %s\n", p.getSimilarity(),
+                              corpus.getName(p.getBook()), corpus.getName(p.getOther()));
+        }
+        for (int b = 0; b < corpus.size(); b++)
+            System.out.println(corpus.getName(b) + ": " + String.join(" ", books.distinctiveWords(b, 8)));
+    }
+}
@@ -0,0 +1,264 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Splits a memory-mapped text file into words without creating a String
+ * for every word.  Bytes are classified with a lookup table and each word
+ * is cleaned up with the same rules as WordAnalysis.cleanUp: letters are
+ * kept (in lower case), and an apostrophe or a hyphen is kept only if the
+ * characters just before and after it are letters.  Words are separated
+ * by whitespace, as with Scanner.next().
+ *
+ * The cleaned-up word is copied into a buffer that is reused for every
+ * word, so tokenizing does not allocate anything per character or per
+ * word.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class ByteTokenizer
+{
+    // the largest part of a file mapped at one time
+    private static final long WINDOW = 1L << 28;
+
+    // kinds of bytes
+    private static final byte OTHER = 0;
+    private static final byte LETTER = 1;
+    private static final byte JOINER = 2;   // apostrophe or hyphen
+    private static final byte SPACE = 3;
+    private static final byte MAYBE_SPACE = 4;   // may start a UTF-8 space
+
+    private static final byte[] KIND = new byte[256];
+    private static final byte[] LOWER = new byte[256];
+
+    static
+    {
+        for (int c = 'a'; c <= 'z'; c++)
+        {
+            KIND[c] = LETTER;
+            LOWER[c] = (byte) c;
+        }
+        for (int c = 'A'; c <= 'Z'; c++)
+        {
+            KIND[c] = LETTER;
+            LOWER[c] = (byte) (c - 'A' + 'a');
+        }
+        KIND['\''] = JOINER;
+        KIND['-'] = JOINER;
+        LOWER['\''] = '\'';
+        LOWER['-'] = '-';
+        // the ASCII characters Character.isWhitespace accepts
+        for (int c = 9; c <= 13; c++)
+            KIND[c] = SPACE;
+        for (int c = 28; c <= 32; c++)
+            KIND[c] = SPACE;
+        KIND[0xe1] = MAYBE_SPACE;
+        KIND[0xe2] = MAYBE_SPACE;
+        KIND[0xe3] = MAYBE_SPACE;
+    }
+
+    private byte[] word;   // holds the current cleaned-up word
+
+    /**
+     * Constructor for objects of class ByteTokenizer.
+     */
+    public ByteTokenizer()
+    {
+        word = new byte[64];
+    }
+
+    /**
+     * Sends every word in a file to sink.
+     *
+     * @param fileName   the pathname of the file
+     * @param sink       receives the words
+     * @throws IOException file is not found
+     */
+    public void tokenize(String fileName, TokenSink sink) throws IOException
+    {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+             FileChannel channel = file.getChannel())
+        {
+            tokenize(channel, 0, channel.size(), sink);
+        }
+    }
+
+    /**
+     * Sends every word in the bytes start .. end-1 of a file to sink.  The
+     * range is mapped a window at a time; each window ends at whitespace
+     * so no word is split between windows.
+     *
+     * @param channel  the open file
+     * @param start    the offset of the first byte to read
+     * @param end      the offset just past the last byte to read
+     * @param sink     receives the words
+     * @throws IOException the file cannot be read
+     */
+    public void tokenize(FileChannel channel, long start, long end, TokenSink sink)
+        throws IOException
+    {
+        long pos = start;
+        while (pos < end)
+        {
+            long limit = Math.min(end, pos + WINDOW);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, pos, limit - pos);
+            int stop = (int) (limit - pos);
+            if (limit < end)
+            {
+                int k = stop;
+                while (k > 0 && KIND[map.get(k - 1) & 0xff] != SPACE)
+                    k--;
+                if (k > 0)
+                    stop = k;
+            }
+            tokenize(map, 0, stop, pos, sink);
+            pos += stop;
+        }
+    }
+
+    /**
+     * Sends every word in buf[start .. end-1] to sink.
+     *
+     * @param buf    the bytes of the text
+     * @param start  the index of the first byte to read
+     * @param end    the index just past the last byte to read
+     * @param base   the file offset of buf[0]
+     * @param sink   receives the words
+     */
+    public void tokenize(ByteBuffer buf, int start, int end, long base, TokenSink sink)
+    {
+        int i = start;
+        while (i < end)
+        {
+            int space = spaceLength(buf, i, end);
+            if (space > 0)
+            {
+                i += space;
+            }
+            else
+            {
+                int j = i + 1;
+                while (j < end && spaceLength(buf, j, end) == 0)
+                    j++;
+                cleanUp(buf, i, j, base, sink);
+                i = j;
+            }
+        }
+    }
+
+    /**
+     * Returns whether b is a letter (between 'a' and 'z', or 'A' and 'Z',
+     * inclusive).
+     *
+     * @param b  the byte being tested
+     * @return true if b is a letter; otherwise, false
+     */
+    public static boolean isLetter(byte b)
+    {
+        return KIND[b & 0xff] == LETTER;
+    }
+
+    /**
+     * Returns whether b is an ASCII whitespace character.
+     *
+     * @param b  the byte being tested
+     * @return true if b is whitespace; otherwise, false
+     */
+    public static boolean isSpace(byte b)
+    {
+        return KIND[b & 0xff] == SPACE;
+    }
+
+    /**
+     * Cleans up a word that was typed rather than read from a file, with
+     * the same rules as the words of a file, so it can be looked up among
+     * them.
+     *
+     * @param s  the characters of one word, with no whitespace
+     * @return   the word in lower case, with only its letters and the
+     *           apostrophes and hyphens that have a letter on each side;
+     *           empty if nothing is left
+     */
+    public static String cleanUp(String s)
+    {
+        StringBuilder cleaned = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++)
+        {
+            byte kind = kindOf(s, i);
+            if (kind == LETTER ||
+                kind == JOINER && kindOf(s, i - 1) == LETTER && kindOf(s, i + 1) == LETTER)
+                cleaned.append((char) LOWER[s.charAt(i)]);
+        }
+        return cleaned.toString();
+    }
+
+    /**
+     * Returns the kind of s.charAt(i), or OTHER if i is outside s.
+     * Characters past one byte are never letters or joiners.
+     */
+    private static byte kindOf(String s, int i)
+    {
+        if (i < 0 || i >= s.length() || s.charAt(i) > 0xff)
+            return OTHER;
+        return KIND[s.charAt(i)];
+    }
+
+    /**
+     * Cleans up the characters buf[from .. to-1], which have no whitespace,
+     * and sends the result to sink if it is not empty.
+     */
+    private void cleanUp(ByteBuffer buf, int from, int to, long base, TokenSink sink)
+    {
+        int len = 0;
+        int first = -1;
+        int last = -1;
+        for (int p = from; p < to; p++)
+        {
+            int b = buf.get(p) & 0xff;
+            byte kind = KIND[b];
+            if (kind == LETTER ||
+                kind == JOINER && from < p && p + 1 < to &&
+                KIND[buf.get(p - 1) & 0xff] == LETTER &&
+                KIND[buf.get(p + 1) & 0xff] == LETTER)
+            {
+                if (len == word.length)
+                    word = java.util.Arrays.copyOf(word, len * 2);
+                if (first < 0)
+                    first = p;
+                last = p;
+                word[len++] = LOWER[b];
+            }
+        }
+        if (len > 0)
+            sink.token(word, 0, len, base + first, last - first + 1);
+    }
+
+    /**
+     * Returns how many bytes of whitespace start at buf[i], or 0 if buf[i]
+     * does not start whitespace.  Besides ASCII whitespace, the UTF-8 forms
+     * of the Unicode spaces that Character.isWhitespace accepts are
+     * recognized.
+     */
+    private static int spaceLength(ByteBuffer buf, int i, int end)
+    {
+        byte kind = KIND[buf.get(i) & 0xff];
+        if (kind == SPACE)
+            return 1;
+        if (kind != MAYBE_SPACE || i + 2 >= end)
+            return 0;
+        int b0 = buf.get(i) & 0xff;
+        int b1 = buf.get(i + 1) & 0xff;
+        int b2 = buf.get(i + 2) & 0xff;
+        if (b0 == 0xe1)
+            return b1 == 0x9a && b2 == 0x80 ? 3 : 0;              // U+1680
+        if (b0 == 0xe3)
+            return b1 == 0x80 && b2 == 0x80 ? 3 : 0;              // U+3000
+        if (b1 == 0x80)
+            return b2 >= 0x80 && b2 <= 0x8a && b2 != 0x87 ||      // U+2000 .. U+200A
+                   b2 == 0xa8 || b2 == 0xa9 ? 3 : 0;              // U+2028, U+2029
+        return b1 == 0x81 && b2 == 0x9f ? 3 : 0;                  // U+205F
+    }
+}
@@ -0,0 +1,329 @@
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Counts the words of a book chapter by chapter.  A chapter starts at a
+ * line that begins with a section marker, such as "CHAPTER" in
+ * MobyDick.txt; the text before the first marker is a chapter of its own.
+ * Finding the markers takes one scan of the bytes, and then each chapter
+ * reads only its own bytes into its own WordCounter, on several threads.
+ *
+ * The counts of the chapters together are the counts of the whole book,
+ * so the global counts are made by merging them rather than by reading
+ * the book again.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class ChapterAnalysis
+{
+    /** The section marker of MobyDick.txt. */
+    public static final String DEFAULT_MARKER = "CHAPTER";
+
+    // titles longer than this are cut short
+    private static final int MAX_TITLE = 80;
+
+    private final String[] titles;
+    private final long[] starts;          // chapter i is bytes starts[i] .. starts[i+1]-1
+    private final WordCounter[] counts;
+    private WordCounter totals;           // merged when first needed
+
+    /**
+     * Constructor for a ChapterAnalysis whose chapters have been counted.
+     */
+    private ChapterAnalysis(String[] titles, long[] starts, WordCounter[] counts)
+    {
+        this.titles = titles;
+        this.starts = starts;
+        this.counts = counts;
+    }
+
+    /**
+     * Splits a file into chapters at lines beginning with one of the
+     * markers, and counts the words of each chapter.
+     *
+     * @param fileName   the pathname of the file
+     * @param threads    the number of threads counting chapters
+     * @param markers    the text that begins the first line of a chapter
+     * @return           the counts of every chapter
+     * @throws IOException file is not found
+     */
+    public static ChapterAnalysis build(String fileName, int threads, String... markers)
+        throws IOException
+    {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        if (markers.length == 0 || markers.length > 64)
+            throw new IllegalArgumentException("between 1 and 64 markers are needed");
+        for (String marker : markers)
+        {
+            if (marker.isEmpty())
+                throw new IllegalArgumentException("a marker cannot be empty");
+        }
+        ArrayList<Long> found = new ArrayList<Long>();
+        ArrayList<String> names = new ArrayList<String>();
+        findChapters(fileName, markers, found, names);
+
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+             FileChannel channel = file.getChannel())
+        {
+            long size = channel.size();
+            if (found.isEmpty() || found.get(0) > 0)
+            {
+                found.add(0, 0L);
+                names.add(0, found.size() == 1 ? "Whole text" : "Front matter");
+            }
+            long[] starts = new long[found.size() + 1];
+            for (int i = 0; i < found.size(); i++)
+                starts[i] = found.get(i);
+            starts[found.size()] = size;
+
+            WordCounter[] counts = new WordCounter[found.size()];
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try
+            {
+                pool.invoke(new CountTask(channel, starts, counts, 0, counts.length));
+            }
+            catch (java.io.UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+            return new ChapterAnalysis(names.toArray(new String[0]), starts, counts);
+        }
+    }
+
+    /**
+     * Returns the number of chapters.
+     *
+     * @return the number of chapters, including the text before the
+     *         first marker if there is any
+     */
+    public int size()
+    {
+        return counts.length;
+    }
+
+    /**
+     * Returns the title of a chapter: the line its marker begins.
+     *
+     * @param chapter  the number of the chapter, from 0
+     * @return         the title
+     */
+    public String getTitle(int chapter)
+    {
+        return titles[chapter];
+    }
+
+    /**
+     * Returns the offset in the file where a chapter starts.
+     *
+     * @param chapter  the number of the chapter, from 0
+     * @return         the offset of its first byte
+     */
+    public long getStart(int chapter)
+    {
+        return starts[chapter];
+    }
+
+    /**
+     * Returns the counts of the words of one chapter.
+     *
+     * @param chapter  the number of the chapter, from 0
+     * @return         its word counter
+     */
+    public WordCounter getCounts(int chapter)
+    {
+        return counts[chapter];
+    }
+
+    /**
+     * Returns how many times a word appears in a chapter.
+     *
+     * @param txt      the word
+     * @param chapter  the number of the chapter, from 0
+     * @return         the count, or 0 if it does not appear there
+     */
+    public int getFrequency(String txt, int chapter)
+    {
+        return counts[chapter].getCount(txt);
+    }
+
+    /**
+     * Returns how many times a word appears in each chapter.
+     *
+     * @param txt  the word
+     * @return     element i is the count of txt in chapter i
+     */
+    public int[] getFrequencies(String txt)
+    {
+        int[] result = new int[counts.length];
+        for (int i = 0; i < counts.length; i++)
+            result[i] = counts[i].getCount(txt);
+        return result;
+    }
+
+    /**
+     * Finds the chapters where a word is most frequent, relative to the
+     * length of the chapter, so long chapters are not favored.
+     *
+     * @param txt  the word
+     * @param k    the number of chapters wanted
+     * @return     the numbers of up to k chapters in which txt appears,
+     *             the chapter where it is most frequent first; chapters
+     *             that tie are in book order
+     */
+    public int[] peakChapters(String txt, int k)
+    {
+        int[] found = getFrequencies(txt);
+        int[] best = TopK.select(counts.length, k, (a, b) -> {
+            // found[a] / total(a) > found[b] / total(b), without dividing
+            long left = (long) found[a] * counts[b].getTotal();
+            long right = (long) found[b] * counts[a].getTotal();
+            return left != right ? left > right : a < b;
+        });
+        int n = 0;
+        while (n < best.length && found[best[n]] > 0)
+            n++;
+        return java.util.Arrays.copyOf(best, n);
+    }
+
+    /**
+     * Returns the counts of the whole book, merged from the chapters the
+     * first time they are asked for.
+     *
+     * @return the global word counter
+     */
+    public WordCounter getTotals()
+    {
+        if (totals == null)
+        {
+            WordCounter merged = new WordCounter();
+            for (WordCounter chapter : counts)
+                merged.addAll(chapter);
+            totals = merged;
+        }
+        return totals;
+    }
+
+    /**
+     * Scans a file once for lines that begin with a marker, recording
+     * where each such line starts and the text of the line.
+     */
+    private static void findChapters(String fileName, String[] markers,
+                                     ArrayList<Long> found, ArrayList<String> names)
+        throws IOException
+    {
+        byte[][] wanted = new byte[markers.length][];
+        for (int k = 0; k < markers.length; k++)
+            wanted[k] = markers[k].getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+        long everyMarker = markers.length == 64 ? -1L : (1L << markers.length) - 1;
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(fileName), 1 << 16))
+        {
+            long pos = 0;
+            long lineStart = 0;
+            long alive = everyMarker;       // markers that still match this line
+            int matched = 0;                // bytes of the line matched so far
+            StringBuilder title = null;     // the title being read, if any
+            int b;
+            while ((b = in.read()) >= 0)
+            {
+                if (b == '\n')
+                {
+                    if (title != null)
+                        names.add(title.toString().trim());
+                    title = null;
+                    lineStart = pos + 1;
+                    alive = everyMarker;
+                    matched = 0;
+                }
+                else if (title != null)
+                {
+                    if (title.length() < MAX_TITLE && b != '\r')
+                        title.append((char) b);
+                }
+                else if (alive != 0)
+                {
+                    for (int k = 0; k < wanted.length; k++)
+                    {
+                        if ((alive & (1L << k)) != 0 && wanted[k][matched] != (byte) b)
+                            alive &= ~(1L << k);
+                    }
+                    matched++;
+                    for (int k = 0; k < wanted.length && title == null; k++)
+                    {
+                        if ((alive & (1L << k)) != 0 && wanted[k].length == matched)
+                        {
+                            found.add(lineStart);
+                            title = new StringBuilder(markers[k]);
+                            alive = 0;
+                        }
+                    }
+                }
+                pos++;
+            }
+            if (title != null)
+                names.add(title.toString().trim());
+        }
+    }
+
+    /**
+     * Counts the chapters first .. last-1, splitting them between two
+     * subtasks when there is more than one.
+     */
+    private static class CountTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] starts;
+        private final WordCounter[] counts;
+        private final int first;
+        private final int last;
+
+        CountTask(FileChannel channel, long[] starts, WordCounter[] counts, int first, int last)
+        {
+            this.channel = channel;
+            this.starts = starts;
+            this.counts = counts;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (last - first == 1)
+            {
+                WordCounter chapter = new WordCounter();
+                try
+                {
+                    new ByteTokenizer().tokenize(channel, starts[first], starts[last],
+                        (buf, off, len, position) -> chapter.add(buf, off, len));
+                }
+                catch (IOException e)
+                {
+                    throw new java.io.UncheckedIOException(e);
+                }
+                counts[first] = chapter;
+                return;
+            }
+            if (last <= first)
+                return;
+            int mid = (first + last) / 2;
+            invokeAll(new CountTask(channel, starts, counts, first, mid),
+                      new CountTask(channel, starts, counts, mid, last));
+        }
+    }
+}
@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A positional inverted index of a text: for every word, the byte offset
+ * in the file of each place it appears, and how many bytes of the file it
+ * spans there.  The offsets of a word are kept in increasing order as the
+ * differences between neighbors, each written as a variable-length
+ * integer followed by the span, so a word that appears often takes two or
+ * three bytes per appearance.  The span is kept because a cleaned-up word
+ * can be shorter than the text it came from: "together--there" is counted
+ * as "togetherthere".
+ *
+ * The index answers keyword-in-context queries by reading the text around
+ * each offset straight from a memory map of the file.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class ConcordanceIndex implements TokenSink
+{
+    // the file is mapped in segments of this size ...
+    private static final long SEGMENT = 1L << 30;
+    // ... that overlap by this much, so a context window never spans two
+    private static final int OVERLAP = 1 << 16;
+
+    private final String fileName;
+    private final WordCounter dictionary;
+
+    // parallel arrays indexed by word id
+    private byte[][] postings;    // the varint offset differences and spans
+    private int[] lengths;        // bytes used in each postings array
+    private long[] lastOffset;    // the offset added last for each word
+
+    private MappedByteBuffer[] segments;   // mapped when first needed
+    private long fileSize;
+
+    /**
+     * Constructor for an empty ConcordanceIndex of a file.
+     *
+     * @param fileName  the pathname of the file being indexed
+     */
+    public ConcordanceIndex(String fileName)
+    {
+        this.fileName = fileName;
+        dictionary = new WordCounter();
+        postings = new byte[1024][];
+        lengths = new int[1024];
+        lastOffset = new long[1024];
+    }
+
+    /**
+     * Reads a file and indexes every word in it.
+     *
+     * @param fileName   the pathname of the file
+     * @return           the index
+     * @throws IOException file is not found
+     */
+    public static ConcordanceIndex build(String fileName) throws IOException
+    {
+        ConcordanceIndex index = new ConcordanceIndex(fileName);
+        new ByteTokenizer().tokenize(fileName, index);
+        return index;
+    }
+
+    /**
+     * Records where the next word of the text appears, taking it to span
+     * just its own bytes.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     */
+    public void token(byte[] buf, int off, int len, long position)
+    {
+        token(buf, off, len, position, len);
+    }
+
+    /**
+     * Records where the next word of the text appears and how many bytes
+     * of the file it spans.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     * @param span      the number of bytes of the file the word spans
+     */
+    public void token(byte[] buf, int off, int len, long position, int span)
+    {
+        int id = dictionary.add(buf, off, len);
+        if (id == postings.length)
+        {
+            postings = Arrays.copyOf(postings, id * 2);
+            lengths = Arrays.copyOf(lengths, id * 2);
+            lastOffset = Arrays.copyOf(lastOffset, id * 2);
+        }
+        if (postings[id] == null)
+            postings[id] = new byte[4];
+        long delta = position - lastOffset[id];
+        lastOffset[id] = position;
+        // the longest varint of a long is 10 bytes, and of an int 5
+        if (lengths[id] + 15 > postings[id].length)
+            postings[id] = Arrays.copyOf(postings[id], Math.max(postings[id].length * 2, lengths[id] + 15));
+        byte[] list = postings[id];
+        int at = lengths[id];
+        while ((delta & ~0x7fL) != 0)
+        {
+            list[at++] = (byte) ((delta & 0x7f) | 0x80);
+            delta >>>= 7;
+        }
+        list[at++] = (byte) delta;
+        while ((span & ~0x7f) != 0)
+        {
+            list[at++] = (byte) ((span & 0x7f) | 0x80);
+            span >>>= 7;
+        }
+        list[at++] = (byte) span;
+        lengths[id] = at;
+    }
+
+    /**
+     * Returns the dictionary of the index, with the count of every word.
+     *
+     * @return the words indexed and their counts
+     */
+    public WordCounter getDictionary()
+    {
+        return dictionary;
+    }
+
+    /**
+     * Finds the byte offset of every appearance of a word.
+     *
+     * @param txt  the word to be found
+     * @return     its offsets in the file in increasing order; empty if it
+     *             does not appear
+     */
+    public long[] offsetsOf(String txt)
+    {
+        int id = dictionary.indexOf(txt);
+        if (id < 0)
+            return new long[0];
+        long[] offsets = new long[dictionary.countAt(id)];
+        decode(id, offsets, null);
+        return offsets;
+    }
+
+    /**
+     * Finds how many bytes of the file a word spans at each appearance.
+     *
+     * @param txt  the word to be found
+     * @return     its spans, in the order of offsetsOf; empty if it does
+     *             not appear
+     */
+    public int[] spansOf(String txt)
+    {
+        int id = dictionary.indexOf(txt);
+        if (id < 0)
+            return new int[0];
+        int[] spans = new int[dictionary.countAt(id)];
+        decode(id, null, spans);
+        return spans;
+    }
+
+    /**
+     * Reads the postings of word id into offsets and spans, either of
+     * which may be null.
+     */
+    private void decode(int id, long[] offsets, int[] spans)
+    {
+        byte[] list = postings[id];
+        int n = dictionary.countAt(id);
+        long offset = 0;
+        int at = 0;
+        for (int i = 0; i < n; i++)
+        {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = list[at++];
+                delta |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            int span = 0;
+            shift = 0;
+            do
+            {
+                b = list[at++];
+                span |= (b & 0x7f) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            offset += delta;
+            if (offsets != null)
+                offsets[i] = offset;
+            if (spans != null)
+                spans[i] = span;
+        }
+    }
+
+    /**
+     * Returns every appearance of a word with the text around it, one line
+     * per appearance.  The text is decoded as UTF-8, and the context is
+     * cut at whitespace so no word or character is split.  Line breaks and
+     * tabs in the context are shown as spaces.
+     *
+     * @param txt           the word to be found
+     * @param contextChars  how many characters to show on each side
+     * @return              the lines; empty if the word does not appear
+     * @throws IOException  the file cannot be read
+     */
+    public ArrayList<String> concordance(String txt, int contextChars) throws IOException
+    {
+        contextChars = Math.max(0, Math.min(contextChars, OVERLAP / 4));
+        ArrayList<String> lines = new ArrayList<String>();
+        long[] offsets = offsetsOf(txt);
+        if (offsets.length == 0)
+            return lines;
+        int[] spans = spansOf(txt);
+        mapFile();
+        for (int i = 0; i < offsets.length; i++)
+        {
+            long offset = offsets[i];
+            // the bracket shows the word as it is in the file; a span too
+            // long to fit in the overlap of two segments is cut short
+            long end = Math.min(fileSize, offset + Math.min(spans[i], OVERLAP / 4));
+            long from = Math.max(0, offset - contextChars);
+            long to = Math.min(fileSize, end + contextChars);
+
+            // read one byte more on each side, to see whether the context
+            // starts and ends at whitespace
+            long low = Math.max(0, from - 1);
+            byte[] text = read(low, Math.min(fileSize, to + 1));
+            int first = (int) (from - low);
+            int last = (int) (to - low);
+            int wordStart = (int) (offset - low);
+            int wordEnd = (int) (end - low);
+
+            // cut the context only at whitespace, so neither a word nor a
+            // UTF-8 character is split; without whitespace, cut between
+            // characters
+            if (first > 0 && !ByteTokenizer.isSpace(text[first - 1]))
+            {
+                int at = first;
+                while (at < wordStart && !ByteTokenizer.isSpace(text[at]))
+                    at++;
+                if (at < wordStart)
+                    first = at + 1;
+                else
+                    while (first < wordStart && (text[first] & 0xc0) == 0x80)
+                        first++;
+            }
+            if (last < text.length && !ByteTokenizer.isSpace(text[last]))
+            {
+                int at = last;
+                while (at > wordEnd && !ByteTokenizer.isSpace(text[at - 1]))
+                    at--;
+                if (at > wordEnd)
+                    last = at - 1;
+                else
+                    while (last > wordEnd && (text[last] & 0xc0) == 0x80)
+                        last--;
+            }
+            lines.add(String.format("%" + Math.max(1, contextChars) + "s [%s] %s",
+                                    decode(text, first, wordStart), decode(text, wordStart, wordEnd),
+                                    decode(text, wordEnd, last)));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the bytes of the file from start to end-1.
+     */
+    private byte[] read(long start, long end)
+    {
+        MappedByteBuffer segment = segments[(int) (start / SEGMENT)];
+        byte[] bytes = new byte[(int) (end - start)];
+        segment.get((int) (start % SEGMENT), bytes);
+        return bytes;
+    }
+
+    /**
+     * Decodes bytes from .. to-1 as UTF-8, showing line breaks, tabs and
+     * other control characters as spaces.
+     */
+    private static String decode(byte[] bytes, int from, int to)
+    {
+        char[] text = new String(bytes, from, to - from, StandardCharsets.UTF_8).toCharArray();
+        for (int i = 0; i < text.length; i++)
+        {
+            if (text[i] < ' ')
+                text[i] = ' ';
+        }
+        return new String(text);
+    }
+
+    /**
+     * Maps the file, in overlapping segments, the first time it is read.
+     */
+    private void mapFile() throws IOException
+    {
+        if (segments != null)
+            return;
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+             FileChannel channel = file.getChannel())
+        {
+            fileSize = channel.size();
+            int count = (int) Math.max(1, (fileSize + SEGMENT - 1) / SEGMENT);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++)
+            {
+                long start = i * SEGMENT;
+                long length = Math.min(fileSize - start, SEGMENT + OVERLAP);
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, length));
+            }
+            segments = mapped;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Counts the words of every book in a directory.  Each book is read by
+ * a task of its own, and a Semaphore bounds how many books are being
+ * read at once, so the disks and cores are kept busy however many files
+ * there are.  Each book keeps its own WordCounter, and the counts of the
+ * whole corpus are merged on the calling thread as the books finish, so
+ * merging overlaps with reading the books that are left.
+ *
+ * On a Java with virtual threads every book gets a virtual thread, and
+ * the Semaphore is what keeps the reads bounded.  On older Javas the tasks
+ * run on a pool with one platform thread per permit instead.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class CorpusAnalysis
+{
+    /** The books read when no pattern is given. */
+    public static final String DEFAULT_PATTERN = "*.txt";
+
+    private final String[] names;          // the file names of the books, sorted
+    private final WordCounter[] counts;    // counts[i] is the counts of book i
+    private final long[] ingestNanos;      // how long reading each book took
+    private final WordCounter totals;      // the counts of the whole corpus
+    private final long wallNanos;          // how long reading the corpus took
+
+    /**
+     * Constructor for a CorpusAnalysis whose books have been counted.
+     */
+    private CorpusAnalysis(String[] names, WordCounter[] counts, long[] ingestNanos,
+                           WordCounter totals, long wallNanos)
+    {
+        this.names = names;
+        this.counts = counts;
+        this.ingestNanos = ingestNanos;
+        this.totals = totals;
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * Counts the words of every .txt file in a directory, reading as many
+     * books at once as there are cores.
+     *
+     * @param directory  the pathname of the directory
+     * @return           the counts of every book and of the corpus
+     * @throws IOException the directory or one of its books cannot be read
+     */
+    public static CorpusAnalysis build(String directory) throws IOException
+    {
+        return build(directory, DEFAULT_PATTERN, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Counts the words of every file in a directory whose name matches a
+     * pattern.
+     *
+     * @param directory  the pathname of the directory
+     * @param pattern    a glob such as "*.txt" that the file names must match
+     * @param permits    how many books may be read at once
+     * @return           the counts of every book and of the corpus
+     * @throws IOException the directory or one of its books cannot be read
+     */
+    public static CorpusAnalysis build(String directory, String pattern, int permits)
+        throws IOException
+    {
+        if (permits < 1)
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        long start = System.nanoTime();
+        ArrayList<Path> books = new ArrayList<Path>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(Paths.get(directory), pattern))
+        {
+            for (Path entry : entries)
+            {
+                if (Files.isRegularFile(entry))
+                    books.add(entry);
+            }
+        }
+        Collections.sort(books);
+
+        int n = books.size();
+        String[] names = new String[n];
+        WordCounter[] counts = new WordCounter[n];
+        long[] ingestNanos = new long[n];
+        WordCounter totals = new WordCounter();
+        Semaphore reading = new Semaphore(permits);
+        ExecutorService executor = newExecutor(permits);
+        try
+        {
+            CompletionService<Integer> done = new ExecutorCompletionService<Integer>(executor);
+            for (int i = 0; i < n; i++)
+            {
+                names[i] = books.get(i).getFileName().toString();
+                int book = i;
+                done.submit(() -> {
+                    reading.acquire();
+                    try
+                    {
+                        long begin = System.nanoTime();
+                        WordCounter bookCounts = new WordCounter();
+                        new ByteTokenizer().tokenize(books.get(book).toString(),
+                            (buf, off, len, position) -> bookCounts.add(buf, off, len));
+                        counts[book] = bookCounts;
+                        ingestNanos[book] = System.nanoTime() - begin;
+                    }
+                    finally
+                    {
+                        reading.release();
+                    }
+                    return book;
+                });
+            }
+            for (int i = 0; i < n; i++)
+                totals.addAll(counts[done.take().get()]);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while reading " + directory);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return new CorpusAnalysis(names, counts, ingestNanos, totals, System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of books.
+     *
+     * @return the number of books in the corpus
+     */
+    public int size()
+    {
+        return counts.length;
+    }
+
+    /**
+     * Returns the file name of a book.
+     *
+     * @param book  the number of the book, from 0, in order of file name
+     * @return      its file name, without the directory
+     */
+    public String getName(int book)
+    {
+        return names[book];
+    }
+
+    /**
+     * Returns the number of the book with the given file name.
+     *
+     * @param name  the file name, without the directory
+     * @return      the number of the book, or -1 if it is not in the corpus
+     */
+    public int indexOf(String name)
+    {
+        for (int i = 0; i < names.length; i++)
+        {
+            if (names[i].equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the counts of the words of one book.
+     *
+     * @param book  the number of the book, from 0
+     * @return      its word counter
+     */
+    public WordCounter getCounts(int book)
+    {
+        return counts[book];
+    }
+
+    /**
+     * Returns the counts of the words of the whole corpus.
+     *
+     * @return the merged word counter
+     */
+    public WordCounter getTotals()
+    {
+        return totals;
+    }
+
+    /**
+     * Returns how many times a word appears in the corpus.
+     *
+     * @param txt  the word
+     * @return     the count, or 0 if it does not appear
+     */
+    public int getFrequency(String txt)
+    {
+        return totals.getCount(txt);
+    }
+
+    /**
+     * Returns how many times a word appears in one book.
+     *
+     * @param txt   the word
+     * @param book  the number of the book, from 0
+     * @return      the count, or 0 if it does not appear there
+     */
+    public int getFrequency(String txt, int book)
+    {
+        return counts[book].getCount(txt);
+    }
+
+    /**
+     * Returns how many times a word appears in each book.
+     *
+     * @param txt  the word
+     * @return     element i is the count of txt in book i
+     */
+    public int[] getFrequencies(String txt)
+    {
+        int[] result = new int[counts.length];
+        for (int i = 0; i < counts.length; i++)
+            result[i] = counts[i].getCount(txt);
+        return result;
+    }
+
+    /**
+     * Returns how many books a word appears in.
+     *
+     * @param txt  the word
+     * @return     the number of books whose count of txt is not 0
+     */
+    public int getBookFrequency(String txt)
+    {
+        int found = 0;
+        for (WordCounter book : counts)
+        {
+            if (book.indexOf(txt) >= 0)
+                found++;
+        }
+        return found;
+    }
+
+    /**
+     * Finds the most frequent words of the corpus.
+     *
+     * @param k  the number of words wanted
+     * @return   the k most frequent words, most frequent first
+     */
+    public ArrayList<Word> topWords(int k)
+    {
+        return totals.topWords(k);
+    }
+
+    /**
+     * Finds the most frequent words of one book.
+     *
+     * @param k     the number of words wanted
+     * @param book  the number of the book, from 0
+     * @return      the k most frequent words of the book, most frequent first
+     */
+    public ArrayList<Word> topWords(int k, int book)
+    {
+        return counts[book].topWords(k);
+    }
+
+    /**
+     * Returns how long reading a book took on its thread.
+     *
+     * @param book  the number of the book, from 0
+     * @return      the time in nanoseconds
+     */
+    public long getIngestNanos(int book)
+    {
+        return ingestNanos[book];
+    }
+
+    /**
+     * Returns how long reading the whole corpus took, merging included.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getWallNanos()
+    {
+        return wallNanos;
+    }
+
+    /**
+     * Prints a line for every book and one for the corpus: the words, the
+     * different words and the milliseconds reading took.
+     */
+    public void print()
+    {
+        System.out.printf("%-32s %12s %10s %10s\n", "Book", "Words", "Distinct", "Millis");
+        for (int i = 0; i < counts.length; i++)
+        {
+            System.out.printf("%-32s %12d %10d %10.1f\n", names[i], counts[i].getTotal(),
+                              counts[i].size(), ingestNanos[i] / 1e6);
+        }
+        System.out.printf("%-32s %12d %10d %10.1f\n", "(corpus of " + counts.length + " books)",
+                          totals.getTotal(), totals.size(), wallNanos / 1e6);
+    }
+
+    /**
+     * Makes an executor that starts a virtual thread for every task if
+     * this Java has them, and otherwise a pool with the given number of
+     * platform threads.
+     */
+    private static ExecutorService newExecutor(int threads)
+    {
+        try
+        {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    /**
+     * Reports how long reading a corpus takes with 1 up to N books read
+     * at once.
+     *
+     * @param  args  the pathname of the directory, and optionally the
+     *               largest number of permits to try (all cores by default)
+     * @throws IOException  if the directory cannot be read
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String directory = args.length > 0 ? args[0] : ".";
+        int most = args.length > 1 ? Integer.parseInt(args[1])
+                                   : Runtime.getRuntime().availableProcessors();
+        // warm up so the first timing does not include compilation
+        build(directory, DEFAULT_PATTERN, most).print();
+        System.out.printf("\n%-8s %10s %8s\n", "Permits", "Millis", "Speedup");
+        double single = 0;
+        for (int permits = 1; permits <= most; permits++)
+        {
+            double millis = build(directory, DEFAULT_PATTERN, permits).getWallNanos() / 1e6;
+            if (permits == 1)
+                single = millis;
+            System.out.printf("%-8d %10.1f %8.2f\n", permits, millis, single / millis);
+        }
+    }
+}
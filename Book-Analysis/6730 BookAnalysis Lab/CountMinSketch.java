@@ -0,0 +1,122 @@
+/**
+ * Estimates how often each word appears using a fixed amount of memory.
+ * A Count-Min Sketch keeps depth rows of width counters; each word is
+ * hashed to one counter in every row, and its estimate is the smallest of
+ * its counters.
+ *
+ * An estimate is never below the true count.  With probability at least
+ * 1 - e^-depth it is at most the true count plus e / width times the
+ * number of words counted.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class CountMinSketch
+{
+    private final int depth;
+    private final int width;    // a power of two
+    private final long[] cells; // row r is cells[r * width .. (r+1) * width - 1]
+    private long total;
+
+    /**
+     * Constructor for a sketch that uses about the given number of bytes.
+     * All the counters are kept in one array, so a budget of more than
+     * about 16 GB gets the widest rows an array can hold.
+     *
+     * @param bytes  the memory budget of the sketch
+     * @param depth  the number of rows
+     */
+    public CountMinSketch(long bytes, int depth)
+    {
+        if (depth < 1)
+            throw new IllegalArgumentException("depth must be positive: " + depth);
+        // the most counters a row can have with depth rows in one array
+        long widest = (Integer.MAX_VALUE - 8L) / depth;
+        if (widest < 16)
+            throw new IllegalArgumentException("too many rows: " + depth);
+        long perRow = Math.max(16, bytes / 8 / depth);
+        this.depth = depth;
+        this.width = (int) Long.highestOneBit(Math.min(perRow, widest));
+        cells = new long[depth * width];
+    }
+
+    /**
+     * Counts one appearance of the word with the given hash.
+     *
+     * @param hash  the hash of the word, from WordCounter.hash
+     */
+    public void add(int hash)
+    {
+        int second = secondHash(hash);
+        for (int r = 0; r < depth; r++)
+            cells[r * width + ((hash + r * second) & (width - 1))]++;
+        total++;
+    }
+
+    /**
+     * Estimates how often the word with the given hash appeared.
+     *
+     * @param hash  the hash of the word, from WordCounter.hash
+     * @return      an estimate that is never below the true count
+     */
+    public long estimate(int hash)
+    {
+        int second = secondHash(hash);
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < depth; r++)
+            best = Math.min(best, cells[r * width + ((hash + r * second) & (width - 1))]);
+        return best;
+    }
+
+    /**
+     * Estimates how often txt appeared.
+     *
+     * @param txt  the word
+     * @return     an estimate that is never below the true count
+     */
+    public long estimate(String txt)
+    {
+        return estimate(WordCounter.hash(txt));
+    }
+
+    /**
+     * Returns how far above the true count an estimate may be, with
+     * probability at least getConfidence().
+     *
+     * @return e / width times the number of words counted
+     */
+    public long getErrorBound()
+    {
+        return (long) Math.ceil(Math.E / width * total);
+    }
+
+    /**
+     * Returns the probability that an estimate is within getErrorBound()
+     * of the true count.
+     *
+     * @return 1 - e^-depth
+     */
+    public double getConfidence()
+    {
+        return 1 - Math.exp(-depth);
+    }
+
+    /**
+     * Returns the number of words counted.
+     *
+     * @return the number of words counted, repetitions included
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Derives an odd second hash, so the rows probe independent columns.
+     */
+    private static int secondHash(int hash)
+    {
+        int h = hash * 0x9e3779b9;
+        return (h ^ (h >>> 15)) | 1;
+    }
+}
@@ -0,0 +1,495 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Counts the words of a text exactly, in a bounded amount of memory, for
+ * texts with more different words than fit in the heap.  Words are
+ * counted in a WordCounter until it holds about as many bytes as the
+ * memory budget; then its words are sorted and written to disk as a run,
+ * and counting goes on in a new WordCounter.  At the end the runs are
+ * merged k ways, adding up the counts of a word that is in more than one
+ * run, into a WordTable: the same lexicographic table of frequencies an
+ * in-memory count gives, kept on disk.
+ *
+ * A run is a file of words in lexicographic order, each stored as the
+ * length of the prefix it shares with the word before it, the rest of its
+ * bytes and its count.  At most MAX_FAN_IN runs are merged at once; if
+ * there are more, groups of them are first merged into longer runs.
+ *
+ * The KEPT most frequent words are picked out during the last merge, so
+ * the most frequent words can be listed without reading the table again.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class ExternalCounter implements TokenSink
+{
+    /** The memory budget used when the caller does not give one. */
+    public static final long DEFAULT_BUDGET = 64L << 20;
+
+    /** The number of most frequent words kept in memory after the merge. */
+    public static final int KEPT = 1000;
+
+    /** The most runs merged at once. */
+    public static final int MAX_FAN_IN = 64;
+
+    // about how many bytes a word takes in a WordCounter, besides its
+    // characters, and while it is being sorted for a run
+    private static final int BYTES_PER_WORD = 100;
+    private static final int BUFFER = 1 << 16;
+
+    private final long memoryBudget;
+    private final Path runDirectory;
+    private final ArrayList<File> runs = new ArrayList<File>();
+    private WordCounter partial = new WordCounter();
+    private long partialBytes;          // about how many bytes partial takes
+    private int spills;                 // runs written while counting
+    private int mergePasses;            // passes over the runs, the last included
+    private WordCounter top;            // the KEPT most frequent words, after finish
+
+    /**
+     * Constructor for a counter that spills runs into a new directory.
+     *
+     * @param memoryBudget  about how many bytes the counts in memory may use
+     * @param runParent     the directory to make the directory of runs in
+     * @throws IOException the directory of runs cannot be made
+     */
+    public ExternalCounter(long memoryBudget, Path runParent) throws IOException
+    {
+        if (memoryBudget <= 0)
+            throw new IllegalArgumentException("memory budget must be positive: " + memoryBudget);
+        this.memoryBudget = memoryBudget;
+        runDirectory = Files.createTempDirectory(runParent, "runs");
+    }
+
+    /**
+     * Counts the words of a file within a memory budget and writes them to
+     * the WordTable kept next to the file.
+     *
+     * @param fileName      the pathname of the file
+     * @param memoryBudget  about how many bytes the counts in memory may use
+     * @return              the counter, finished
+     * @throws IOException  the file cannot be read or the table written
+     */
+    public static ExternalCounter count(String fileName, long memoryBudget) throws IOException
+    {
+        Path parent = new File(fileName).getAbsoluteFile().toPath().getParent();
+        ExternalCounter counter = new ExternalCounter(memoryBudget, parent);
+        try
+        {
+            try
+            {
+                new ByteTokenizer().tokenize(fileName, counter);
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+            counter.finish(WordTable.tableNameFor(fileName));
+        }
+        finally
+        {
+            counter.deleteRuns();
+        }
+        return counter;
+    }
+
+    /**
+     * Counts the next word of the text, and spills the counts in memory to
+     * a run when they reach the memory budget.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     */
+    public void token(byte[] buf, int off, int len, long position)
+    {
+        int id = partial.add(buf, off, len);
+        if (id == partial.size() - 1 && partial.countAt(id) == 1)
+        {
+            partialBytes += BYTES_PER_WORD + len;
+            if (partialBytes >= memoryBudget)
+            {
+                try
+                {
+                    spill();
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Spills what is left in memory and merges all the runs into a table.
+     *
+     * @param tableName  the pathname of the table
+     * @throws IOException a run cannot be read or the table written
+     */
+    public void finish(String tableName) throws IOException
+    {
+        if (partial.size() > 0 || runs.isEmpty())
+            spill();
+        while (runs.size() > MAX_FAN_IN)
+        {
+            ArrayList<File> merged = new ArrayList<File>();
+            for (int from = 0; from < runs.size(); from += MAX_FAN_IN)
+            {
+                int to = Math.min(runs.size(), from + MAX_FAN_IN);
+                File run = newRun();
+                try (RunWriter out = new RunWriter(run))
+                {
+                    merge(runs.subList(from, to), out::add);
+                }
+                for (File used : runs.subList(from, to))
+                    used.delete();
+                merged.add(run);
+            }
+            runs.clear();
+            runs.addAll(merged);
+            mergePasses++;
+        }
+
+        // keep the most frequent words in a min-heap while writing the table
+        PriorityQueue<Word> best = new PriorityQueue<Word>(KEPT + 1, (a, b) ->
+            a.getFrequency() != b.getFrequency() ? Integer.compare(a.getFrequency(), b.getFrequency())
+                                                 : b.getWord().compareTo(a.getWord()));
+        File temp = new File(tableName + ".tmp");
+        try (WordTable.Writer out = new WordTable.Writer(temp.getPath()))
+        {
+            merge(runs, (word, length, count) ->
+            {
+                out.add(word, length, count);
+                if (best.size() < KEPT || count > best.peek().getFrequency())
+                {
+                    best.add(new Word(new String(word, 0, length,
+                                                 StandardCharsets.ISO_8859_1), count));
+                    if (best.size() > KEPT)
+                        best.poll();
+                }
+            });
+        }
+        Files.move(temp.toPath(), new File(tableName).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        mergePasses++;
+
+        top = new WordCounter(best.size());
+        for (Word w : best)
+            top.add(w.getWord(), w.getFrequency());
+    }
+
+    /**
+     * Returns the most frequent words, with their exact frequencies.
+     *
+     * @return counts of the KEPT most frequent words, or null before
+     *         finish
+     */
+    public WordCounter getTopWords()
+    {
+        return top;
+    }
+
+    /**
+     * Returns the number of runs written while counting.
+     *
+     * @return the number of times the counts in memory were spilled
+     */
+    public int getSpills()
+    {
+        return spills;
+    }
+
+    /**
+     * Returns the number of merge passes over the runs.
+     *
+     * @return 1 unless there were more than MAX_FAN_IN runs
+     */
+    public int getMergePasses()
+    {
+        return mergePasses;
+    }
+
+    /**
+     * Sorts the words counted in memory, writes them to a new run and
+     * starts counting again with nothing in memory.
+     */
+    private void spill() throws IOException
+    {
+        Word[] sorted = partial.toList().toArray(new Word[0]);
+        LexiconSort.sort(sorted);
+        File run = newRun();
+        try (RunWriter out = new RunWriter(run))
+        {
+            byte[] bytes = new byte[64];
+            for (Word w : sorted)
+            {
+                String txt = w.getWord();
+                if (txt.length() > bytes.length)
+                    bytes = new byte[Math.max(bytes.length * 2, txt.length())];
+                for (int i = 0; i < txt.length(); i++)
+                    bytes[i] = (byte) txt.charAt(i);
+                out.add(bytes, txt.length(), w.getFrequency());
+            }
+        }
+        runs.add(run);
+        spills++;
+        partial = new WordCounter();
+        partialBytes = 0;
+    }
+
+    /**
+     * Returns the pathname of a new run.
+     */
+    private File newRun()
+    {
+        return runDirectory.resolve("run" + runs.size() + "-" + System.nanoTime()).toFile();
+    }
+
+    /**
+     * Deletes the runs and their directory.
+     */
+    private void deleteRuns()
+    {
+        File[] left = runDirectory.toFile().listFiles();
+        if (left != null)
+        {
+            for (File f : left)
+                f.delete();
+        }
+        runDirectory.toFile().delete();
+        runs.clear();
+    }
+
+    /**
+     * Merges runs, passing each word to out once, in lexicographic order,
+     * with the total of its counts in all the runs.
+     */
+    private static void merge(List<File> runs, Output out) throws IOException
+    {
+        RunReader[] heap = new RunReader[runs.size()];
+        int heapSize = 0;
+        try
+        {
+            for (File run : runs)
+            {
+                RunReader reader = new RunReader(run);
+                if (reader.next())
+                    heap[heapSize++] = reader;
+                else
+                    reader.close();
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--)
+                siftDown(heap, heapSize, i);
+
+            byte[] word = new byte[64];
+            while (heapSize > 0)
+            {
+                RunReader least = heap[0];
+                int length = least.length;
+                if (length > word.length)
+                    word = Arrays.copyOf(word, Math.max(word.length * 2, length));
+                System.arraycopy(least.word, 0, word, 0, length);
+                int count = 0;
+                // take the word from every run that has it; they are all
+                // at the top of the heap in turn
+                while (heapSize > 0 && Arrays.equals(heap[0].word, 0, heap[0].length, word, 0, length))
+                {
+                    RunReader reader = heap[0];
+                    count = Math.addExact(count, reader.count);
+                    if (!reader.next())
+                    {
+                        reader.close();
+                        heap[0] = heap[--heapSize];
+                        heap[heapSize] = null;
+                    }
+                    siftDown(heap, heapSize, 0);
+                }
+                out.add(word, length, count);
+            }
+        }
+        finally
+        {
+            for (int i = 0; i < heapSize; i++)
+                heap[i].close();
+        }
+    }
+
+    /**
+     * Moves the reader at heap[i] down while a child has a smaller word.
+     */
+    private static void siftDown(RunReader[] heap, int heapSize, int i)
+    {
+        while (true)
+        {
+            int least = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && heap[left].compareTo(heap[least]) < 0)
+                least = left;
+            if (right < heapSize && heap[right].compareTo(heap[least]) < 0)
+                least = right;
+            if (least == i)
+                return;
+            RunReader t = heap[i];
+            heap[i] = heap[least];
+            heap[least] = t;
+            i = least;
+        }
+    }
+
+    /**
+     * Where merge sends each word.
+     */
+    private interface Output
+    {
+        void add(byte[] word, int length, int count) throws IOException;
+    }
+
+    /**
+     * Writes the words of a run, in lexicographic order.
+     */
+    private static class RunWriter implements AutoCloseable
+    {
+        private final DataOutputStream out;
+        private byte[] previous = new byte[64];
+        private int previousLength;
+
+        RunWriter(File run) throws IOException
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFFER));
+        }
+
+        void add(byte[] word, int length, int count) throws IOException
+        {
+            int shared = 0;
+            int most = Math.min(previousLength, length);
+            while (shared < most && previous[shared] == word[shared])
+                shared++;
+            WordTable.writeVarInt(out, shared);
+            WordTable.writeVarInt(out, length - shared);
+            out.write(word, shared, length - shared);
+            WordTable.writeVarInt(out, count);
+            if (length > previous.length)
+                previous = Arrays.copyOf(previous, Math.max(previous.length * 2, length));
+            System.arraycopy(word, 0, previous, 0, length);
+            previousLength = length;
+        }
+
+        public void close() throws IOException
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the words of a run one at a time.
+     */
+    private static class RunReader implements AutoCloseable
+    {
+        private final DataInputStream in;
+        private byte[] word = new byte[64];
+        private int length;
+        private int count;
+
+        RunReader(File run) throws IOException
+        {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), BUFFER));
+        }
+
+        /**
+         * Reads the next word; returns false at the end of the run.
+         */
+        boolean next() throws IOException
+        {
+            int shared;
+            try
+            {
+                shared = readVarInt();
+            }
+            catch (EOFException e)
+            {
+                return false;
+            }
+            int rest = readVarInt();
+            if (shared + rest > word.length)
+                word = Arrays.copyOf(word, Math.max(word.length * 2, shared + rest));
+            in.readFully(word, shared, rest);
+            length = shared + rest;
+            count = readVarInt();
+            return true;
+        }
+
+        /**
+         * Compares the current words of two runs, as unsigned bytes.
+         */
+        int compareTo(RunReader other)
+        {
+            return Arrays.compareUnsigned(word, 0, length, other.word, 0, other.length);
+        }
+
+        private int readVarInt() throws IOException
+        {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do
+            {
+                b = in.readByte();
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            return value;
+        }
+
+        public void close() throws IOException
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Counts the words of a file within a memory budget and prints how
+     * many runs were spilled, how long it took and the most frequent
+     * words.
+     *
+     * @param  args  the pathname of the file, and optionally the memory
+     *               budget in megabytes (64 by default)
+     * @throws IOException  if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String fileName = args.length > 0 ? args[0] : "MobyDick.txt";
+        long budget = args.length > 1 ? (long) (Double.parseDouble(args[1]) * (1 << 20))
+                                      : DEFAULT_BUDGET;
+        long start = System.nanoTime();
+        ExternalCounter counter = count(fileName, budget);
+        long counted = System.nanoTime();
+        try (WordTable table = WordTable.open(WordTable.tableNameFor(fileName)))
+        {
+            System.out.printf("%,d words, %,d different: %d runs, %d merge passes, %.1f s\n",
+                              table.getTotal(), table.size(), counter.getSpills(),
+                              counter.getMergePasses(), (counted - start) / 1e9);
+        }
+        for (Word w : counter.getTopWords().topWords(10))
+            System.out.println("  " + w);
+    }
+}
@@ -0,0 +1,431 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the words of a file that keeps growing, such as a log or a
+ * transcript, reading only the bytes appended since the last look.  Only
+ * the bytes up to the last whitespace are tokenized; a word still being
+ * written at the end of the file is left for the next look, so a word
+ * split between two appends is counted once, whole.
+ *
+ * The k most frequent words are kept up to date as words are counted.
+ * While the file only grows, counts only go up, so a word can only join
+ * the top k by passing the least of them; the top k are a min-heap with
+ * the place of every word in it, and each word counted costs at most one
+ * comparison with the least of them unless it is already in the heap.
+ *
+ * If the file gets shorter, it is taken to have been truncated or
+ * replaced, and counting starts again from its first byte with new
+ * counts.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class FileFollower implements TokenSink, AutoCloseable
+{
+    /** How long await waits for a change when it is not told. */
+    public static final long DEFAULT_POLL_MILLIS = 250;
+
+    // bytes read at a time when looking back for the last whitespace
+    private static final int BLOCK = 4096;
+
+    private final String fileName;
+    private final int k;
+    private final ByteTokenizer tokenizer = new ByteTokenizer();
+    private WordCounter counts = new WordCounter();
+    private long consumed;       // the bytes of the file tokenized so far
+    private int restarts;        // times the file got shorter
+
+    // the k most frequent words: heap[0] is the least of them, and
+    // place[id] is where word id is in the heap, or -1
+    private int[] heap;
+    private int heapSize;
+    private int[] place = new int[1024];
+
+    private WatchService watcher;   // null until await is first called
+
+    /**
+     * Constructor for a follower of a file that has not read anything yet.
+     *
+     * @param fileName  the pathname of the file
+     * @param k         the number of most frequent words kept up to date
+     */
+    public FileFollower(String fileName, int k)
+    {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive: " + k);
+        this.fileName = fileName;
+        this.k = k;
+        heap = new int[k];
+        Arrays.fill(place, -1);
+    }
+
+    /**
+     * Counts the words appended to the file since the last poll, up to the
+     * last whitespace.
+     *
+     * @return the number of words counted
+     * @throws IOException the file cannot be read
+     */
+    public long poll() throws IOException
+    {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+             FileChannel channel = file.getChannel())
+        {
+            long size = channel.size();
+            if (size < consumed)
+                restart();
+            long end = lastSpace(channel, consumed, size);
+            return tokenize(channel, end);
+        }
+    }
+
+    /**
+     * Counts every word up to the end of the file, including a last word
+     * that has no whitespace after it yet.  If more of that word is
+     * appended later, the rest is counted as a word of its own.
+     *
+     * @return the number of words counted
+     * @throws IOException the file cannot be read
+     */
+    public long flush() throws IOException
+    {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+             FileChannel channel = file.getChannel())
+        {
+            long size = channel.size();
+            if (size < consumed)
+                restart();
+            return tokenize(channel, size);
+        }
+    }
+
+    /**
+     * Waits until the file may have changed.  The directory of the file is
+     * watched with a WatchService; if it cannot be watched, this just
+     * sleeps, and the next poll finds out whether anything was appended.
+     *
+     * @param millis  the longest time to wait
+     * @return        true if a change to the file was reported
+     * @throws InterruptedException the thread was interrupted while waiting
+     */
+    public boolean await(long millis) throws InterruptedException
+    {
+        Path path = Paths.get(fileName).toAbsolutePath();
+        if (watcher == null)
+        {
+            try
+            {
+                watcher = FileSystems.getDefault().newWatchService();
+                path.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY,
+                                          StandardWatchEventKinds.ENTRY_CREATE);
+            }
+            catch (IOException | UnsupportedOperationException e)
+            {
+                watcher = null;
+            }
+        }
+        if (watcher == null)
+        {
+            Thread.sleep(millis);
+            return false;
+        }
+        WatchKey signalled = watcher.poll(millis, TimeUnit.MILLISECONDS);
+        if (signalled == null)
+            return false;
+        boolean changed = false;
+        for (WatchEvent<?> event : signalled.pollEvents())
+        {
+            if (path.getFileName().equals(event.context()) ||
+                event.kind() == StandardWatchEventKinds.OVERFLOW)
+                changed = true;
+        }
+        signalled.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching the directory of the file.
+     *
+     * @throws IOException the watch service cannot be closed
+     */
+    public void close() throws IOException
+    {
+        if (watcher != null)
+            watcher.close();
+        watcher = null;
+    }
+
+    /**
+     * Counts the next word of the text, and lets it into the top k if it
+     * has passed the least of them.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     */
+    public void token(byte[] buf, int off, int len, long position)
+    {
+        int id = counts.add(buf, off, len);
+        if (id >= place.length)
+        {
+            int old = place.length;
+            place = Arrays.copyOf(place, Math.max(old * 2, id + 1));
+            Arrays.fill(place, old, place.length, -1);
+        }
+        if (place[id] >= 0)
+        {
+            // its count went up, so it may be below the words under it
+            siftDown(place[id]);
+        }
+        else if (heapSize < k)
+        {
+            heap[heapSize] = id;
+            place[id] = heapSize;
+            siftUp(heapSize++);
+        }
+        else if (ranksBefore(id, heap[0]))
+        {
+            place[heap[0]] = -1;
+            heap[0] = id;
+            place[id] = 0;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Returns the counts of the words read so far.  After the file gets
+     * shorter this is a new counter.
+     *
+     * @return the word counter
+     */
+    public WordCounter getCounts()
+    {
+        return counts;
+    }
+
+    /**
+     * Returns the most frequent words read so far.
+     *
+     * @param n  the number of words wanted, at most k
+     * @return   the n most frequent words, most frequent first; words with
+     *           the same frequency are in lexicographic order
+     */
+    public ArrayList<Word> topWords(int n)
+    {
+        if (n > k)
+            throw new IllegalArgumentException("only the top " + k + " words are kept");
+        int[] best = TopK.select(heapSize, n, (a, b) -> ranksBefore(heap[a], heap[b]));
+        ArrayList<Word> result = new ArrayList<Word>(best.length);
+        for (int i : best)
+            result.add(new Word(counts.wordAt(heap[i]), counts.countAt(heap[i])));
+        return result;
+    }
+
+    /**
+     * Adds up the counts of the most frequent words read so far, looking
+     * only at the k words in the heap.
+     *
+     * @param n  the number of words, at most k
+     * @return   the total count of the n most frequent words
+     */
+    public long sumTopWords(int n)
+    {
+        if (n > k)
+            throw new IllegalArgumentException("only the top " + k + " words are kept");
+        long sum = 0;
+        for (int i : TopK.select(heapSize, n, (a, b) -> counts.countAt(heap[a]) > counts.countAt(heap[b])))
+            sum += counts.countAt(heap[i]);
+        return sum;
+    }
+
+    /**
+     * Returns the number of most frequent words kept up to date.
+     *
+     * @return k
+     */
+    public int getK()
+    {
+        return k;
+    }
+
+    /**
+     * Returns how far into the file words have been counted.
+     *
+     * @return the offset of the first byte not yet tokenized
+     */
+    public long getPosition()
+    {
+        return consumed;
+    }
+
+    /**
+     * Returns how many times the file got shorter and counting started
+     * again.
+     *
+     * @return the number of restarts
+     */
+    public int getRestarts()
+    {
+        return restarts;
+    }
+
+    /**
+     * Tokenizes the bytes from where the last look stopped up to end.
+     */
+    private long tokenize(FileChannel channel, long end) throws IOException
+    {
+        if (end <= consumed)
+            return 0;
+        long before = counts.getTotal();
+        tokenizer.tokenize(channel, consumed, end, this);
+        consumed = end;
+        return counts.getTotal() - before;
+    }
+
+    /**
+     * Forgets everything counted, to read the file again from its start.
+     */
+    private void restart()
+    {
+        counts = new WordCounter();
+        consumed = 0;
+        heapSize = 0;
+        Arrays.fill(place, -1);
+        restarts++;
+    }
+
+    /**
+     * Returns the offset just past the last whitespace byte in bytes
+     * start .. end-1, or start if there is none.
+     */
+    private static long lastSpace(FileChannel channel, long start, long end) throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.allocate(BLOCK);
+        long pos = end;
+        while (pos > start)
+        {
+            long from = Math.max(start, pos - BLOCK);
+            buf.clear();
+            buf.limit((int) (pos - from));
+            while (buf.hasRemaining() && channel.read(buf, from + buf.position()) > 0)
+            {
+                // keep reading until the block is full
+            }
+            for (int i = buf.position() - 1; i >= 0; i--)
+            {
+                if (ByteTokenizer.isSpace(buf.get(i)))
+                    return from + i + 1;
+            }
+            pos = from;
+        }
+        return start;
+    }
+
+    /**
+     * Returns whether the word with id a ranks ahead of the word with id
+     * b: more frequent, or as frequent and first in lexicographic order.
+     */
+    private boolean ranksBefore(int a, int b)
+    {
+        int countA = counts.countAt(a);
+        int countB = counts.countAt(b);
+        if (countA != countB)
+            return countA > countB;
+        return counts.wordAt(a).compareTo(counts.wordAt(b)) < 0;
+    }
+
+    /**
+     * Moves the word at heap[i] up while it ranks below its parent.
+     */
+    private void siftUp(int i)
+    {
+        while (i > 0)
+        {
+            int parent = (i - 1) / 2;
+            if (!ranksBefore(heap[parent], heap[i]))
+                break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * Moves the word at heap[i] down while a child ranks below it.
+     */
+    private void siftDown(int i)
+    {
+        while (true)
+        {
+            int least = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && ranksBefore(heap[least], heap[left]))
+                least = left;
+            if (right < heapSize && ranksBefore(heap[least], heap[right]))
+                least = right;
+            if (least == i)
+                return;
+            swap(i, least);
+            i = least;
+        }
+    }
+
+    /**
+     * Swaps two places of the heap, keeping place up to date.
+     */
+    private void swap(int i, int j)
+    {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+        place[heap[i]] = i;
+        place[heap[j]] = j;
+    }
+
+    /**
+     * Follows a file, printing the total and the most frequent words
+     * whenever words are appended, until the program is stopped.
+     *
+     * @param  args  the pathname of the file, and optionally how many of
+     *               the most frequent words to print (10 by default)
+     * @throws IOException  if the file cannot be read
+     * @throws InterruptedException  if the program is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        String fileName = args.length > 0 ? args[0] : "MobyDick.txt";
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        try (FileFollower follower = new FileFollower(fileName, k))
+        {
+            while (true)
+            {
+                long start = System.nanoTime();
+                long added = follower.poll();
+                if (added > 0)
+                {
+                    System.out.printf("%,d words (+%,d in %.1f ms), %,d different\n",
+                                      follower.getCounts().getTotal(), added,
+                                      (System.nanoTime() - start) / 1e6,
+                                      follower.getCounts().size());
+                    for (Word w : follower.topWords(k))
+                        System.out.println("  " + w);
+                }
+                follower.await(DEFAULT_POLL_MILLIS);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Orders words by frequency, most frequent first, without comparing them.
+ * In a book most words appear only a few times and only a few words
+ * appear very often, so the words with a frequency below DENSE are
+ * placed by a counting sort (one bucket per frequency) and only the few
+ * words above it are sorted by comparison.
+ *
+ * The sort is stable: words with the same frequency keep the order they
+ * had, so a lexicographic list becomes the frequency order WordAnalysis
+ * has always used, with ties in lexicographic order.  It takes O(n + DENSE)
+ * time plus O(t log t) for the t words in the tail.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class FrequencySort
+{
+    /** Frequencies below this get a bucket of their own. */
+    public static final int DENSE = 1024;
+
+    /**
+     * Orders list by frequency, most frequent first, keeping the order of
+     * words with the same frequency.
+     *
+     * @param list  the words to be ordered
+     */
+    public static void sort(ArrayList<Word> list)
+    {
+        int n = list.size();
+        int[] start = new int[DENSE];
+        int tail = 0;
+        for (int i = 0; i < n; i++)
+        {
+            int f = list.get(i).getFrequency();
+            if (f >= DENSE)
+                tail++;
+            else
+                start[DENSE - 1 - Math.max(0, f)]++;
+        }
+
+        Word[] sorted = new Word[n];
+        // the tail comes first, sorted by comparison; TimSort is stable
+        Word[] frequent = new Word[tail];
+        int t = 0;
+        for (int i = 0; i < n && t < tail; i++)
+        {
+            if (list.get(i).getFrequency() >= DENSE)
+                frequent[t++] = list.get(i);
+        }
+        Arrays.sort(frequent, (a, b) -> Integer.compare(b.getFrequency(), a.getFrequency()));
+        System.arraycopy(frequent, 0, sorted, 0, tail);
+
+        // then one bucket per frequency, from DENSE - 1 down to 0
+        int next = tail;
+        for (int b = 0; b < DENSE; b++)
+        {
+            int count = start[b];
+            start[b] = next;
+            next += count;
+        }
+        for (int i = 0; i < n; i++)
+        {
+            Word w = list.get(i);
+            int f = w.getFrequency();
+            if (f < DENSE)
+                sorted[start[DENSE - 1 - Math.max(0, f)]++] = w;
+        }
+
+        for (int i = 0; i < n; i++)
+            list.set(i, sorted[i]);
+    }
+}
@@ -0,0 +1,221 @@
+import java.io.IOException;
+
+/**
+ * Estimates how many different words a text has without keeping the
+ * words (the HyperLogLog algorithm).  Each word is hashed to 64 bits; the
+ * first p bits pick one of 2^p registers, and the register keeps the
+ * longest run of leading zeros seen in the rest of the hash.  The
+ * estimate is about 1.04 / sqrt(2^p) off, whatever the size of the text:
+ * with the default p of 12 the registers take 4 KB and the estimate is
+ * usually within 2%.
+ *
+ * Two estimators with the same precision can be merged, which gives the
+ * estimate of the texts they saw together, so parallel workers and
+ * separate files can each keep their own and merge them at the end.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class HyperLogLog implements TokenSink
+{
+    /** The precision used when the caller does not give one. */
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Constructor for an empty estimator with the default precision.
+     */
+    public HyperLogLog()
+    {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Constructor for an empty estimator.
+     *
+     * @param precision  the number of hash bits that pick a register, from
+     *                   4 to 18; the registers take 2^precision bytes
+     */
+    public HyperLogLog(int precision)
+    {
+        if (precision < 4 || precision > 18)
+            throw new IllegalArgumentException("precision must be 4 to 18: " + precision);
+        this.precision = precision;
+        registers = new byte[1 << precision];
+    }
+
+    /**
+     * Estimates the number of different words in one or more files, as if
+     * they were one text.
+     *
+     * @param fileNames  the pathnames of the files
+     * @return           the estimator after reading every file
+     * @throws IOException a file is not found
+     */
+    public static HyperLogLog count(String... fileNames) throws IOException
+    {
+        HyperLogLog distinct = new HyperLogLog();
+        ByteTokenizer tokenizer = new ByteTokenizer();
+        for (String fileName : fileNames)
+            tokenizer.tokenize(fileName, distinct);
+        return distinct;
+    }
+
+    /**
+     * Sees the next word of the text.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     */
+    public void token(byte[] buf, int off, int len, long position)
+    {
+        add(buf, off, len);
+    }
+
+    /**
+     * Sees the word in buf[off .. off+len-1].
+     *
+     * @param buf  the bytes holding the word
+     * @param off  the position of the first byte of the word
+     * @param len  the number of bytes in the word
+     */
+    public void add(byte[] buf, int off, int len)
+    {
+        long h = 0xcbf29ce484222325L;
+        for (int i = off; i < off + len; i++)
+            h = (h ^ (buf[i] & 0xff)) * 0x100000001b3L;
+        addHash(mix(h));
+    }
+
+    /**
+     * Sees the word txt.  Gives the same result as add(byte[], int, int)
+     * for the same ASCII word.
+     *
+     * @param txt  the word
+     */
+    public void add(String txt)
+    {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < txt.length(); i++)
+            h = (h ^ txt.charAt(i)) * 0x100000001b3L;
+        addHash(mix(h));
+    }
+
+    /**
+     * Adds the words another estimator has seen to this one.
+     *
+     * @param other  an estimator with the same precision
+     */
+    public void merge(HyperLogLog other)
+    {
+        if (other.precision != precision)
+            throw new IllegalArgumentException("cannot merge precision " + other.precision +
+                                               " into precision " + precision);
+        for (int j = 0; j < registers.length; j++)
+        {
+            if (other.registers[j] > registers[j])
+                registers[j] = other.registers[j];
+        }
+    }
+
+    /**
+     * Estimates the number of different words seen.
+     *
+     * @return the estimate
+     */
+    public long estimate()
+    {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers)
+        {
+            sum += Math.scalb(1.0, -r);
+            if (r == 0)
+                zeros++;
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // few words leave many registers empty; count those instead
+        if (estimate <= 2.5 * m && zeros > 0)
+            estimate = m * Math.log((double) m / zeros);
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns the typical relative error of estimate().
+     *
+     * @return 1.04 / sqrt(2^precision)
+     */
+    public double getRelativeError()
+    {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * Returns the registers, so an estimator can be stored and merged later.
+     *
+     * @return a copy of the registers
+     */
+    public byte[] toByteArray()
+    {
+        return registers.clone();
+    }
+
+    /**
+     * Makes an estimator from registers returned by toByteArray.
+     *
+     * @param saved  the registers
+     * @return       the estimator
+     */
+    public static HyperLogLog fromByteArray(byte[] saved)
+    {
+        int precision = Integer.numberOfTrailingZeros(saved.length);
+        if (saved.length != 1 << precision)
+            throw new IllegalArgumentException("not a saved HyperLogLog: " + saved.length + " bytes");
+        HyperLogLog distinct = new HyperLogLog(precision);
+        System.arraycopy(saved, 0, distinct.registers, 0, saved.length);
+        return distinct;
+    }
+
+    /**
+     * Returns the estimate and its typical error.
+     *
+     * @return the estimate as text
+     */
+    @Override
+    public String toString()
+    {
+        return "about " + estimate() + " (+/-" + Math.round(getRelativeError() * 100) + "%)";
+    }
+
+    /**
+     * Records a hashed word in its register.
+     */
+    private void addHash(long h)
+    {
+        int j = (int) (h >>> (64 - precision));
+        // count the leading zeros after the register bits; the stop bit
+        // keeps the count within them
+        int rank = Long.numberOfLeadingZeros((h << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[j])
+            registers[j] = (byte) rank;
+    }
+
+    /**
+     * Spreads the bits of h (the finalizer of MurmurHash3).
+     */
+    private static long mix(long h)
+    {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,698 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps the word counts of a large text file up to date as it is edited,
+ * without reading every word again.  The file is split into chunks whose
+ * boundaries are chosen by the content itself: a rolling hash of the last
+ * 64 bytes is computed at every byte, and a chunk ends at the first
+ * whitespace after the hash has its top CUT_BITS bits zero.  An edit only
+ * changes the chunks it touches; the chunks after it end at the same
+ * bytes as before, however many bytes were inserted or deleted.
+ *
+ * The counts of every chunk are cached next to the file, with a
+ * fingerprint of its bytes (a CRC32C and a CRC32 side by side).  When the file is opened again, it is split
+ * into chunks again, and only the chunks whose fingerprints are not in
+ * the cache are tokenized.  The counts of the chunks that disappeared are
+ * subtracted from the totals and those of the new chunks are added.
+ *
+ * Finding the chunks still reads every byte, but only to hash it, which
+ * is several times faster than tokenizing and counting; if the size and
+ * modification time of the file have not changed, the file is not read at
+ * all.
+ *
+ * The cache holds, in order:
+ *     a header: "WCHK", the format version, and the size and
+ *               modification time of the text file it was made from;
+ *     the counts of every chunk: pairs of a word id and a count, with the
+ *               ids in increasing order and stored as differences;
+ *     the chunk table: the length, fingerprint, and place of the counts
+ *               of every chunk;
+ *     the dictionary: every word seen, in order of id, with its total;
+ *     where the chunk table and the dictionary start.
+ * Numbers inside the counts and the dictionary are variable-length
+ * integers, as in WordIndex.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class IncrementalIndex
+{
+    private static final int MAGIC = 0x5743484b;   // "WCHK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int FOOTER_SIZE = 16;
+
+    // chunks are MIN_CHUNK to MAX_CHUNK bytes, plus the bytes up to the
+    // next whitespace, and about 2^CUT_BITS bytes on average
+    private static final int MIN_CHUNK = 1 << 16;
+    private static final int MAX_CHUNK = 1 << 20;
+    private static final int CUT_BITS = 18;
+
+    // bytes read at a time while splitting a file
+    private static final int BLOCK = 1 << 20;
+
+    // one random value per byte for the rolling (gear) hash
+    private static final long[] GEAR = new long[256];
+
+    static
+    {
+        long seed = 0x9e3779b97f4a7c15L;
+        for (int b = 0; b < 256; b++)
+        {
+            // splitmix64
+            long z = (seed += 0x9e3779b97f4a7c15L);
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            GEAR[b] = z ^ (z >>> 31);
+        }
+    }
+
+    private final WordCounter dictionary;  // every word seen; its counts are the totals
+    private final int chunks;
+    private final int reused;              // chunks whose counts came from the cache
+    private final long tokenizedBytes;     // bytes of the chunks that were tokenized
+    private final boolean scanned;         // whether the file had to be split again
+    private WordCounter counts;            // the words with a count, made when first needed
+
+    /**
+     * Constructor for an index that is up to date.
+     */
+    private IncrementalIndex(WordCounter dictionary, int chunks, int reused,
+                             long tokenizedBytes, boolean scanned)
+    {
+        this.dictionary = dictionary;
+        this.chunks = chunks;
+        this.reused = reused;
+        this.tokenizedBytes = tokenizedBytes;
+        this.scanned = scanned;
+    }
+
+    /**
+     * Returns the name of the chunk cache kept next to a text file.
+     *
+     * @param sourceName  the pathname of the text file
+     * @return            the pathname of its cache
+     */
+    public static String cacheNameFor(String sourceName)
+    {
+        return sourceName + ".wchunks";
+    }
+
+    /**
+     * Counts the words of a file, tokenizing only the chunks that are not
+     * in its cache, and saves the cache for next time.
+     *
+     * @param sourceName  the pathname of the text file
+     * @return            the index, with the counts of the whole file
+     * @throws IOException the file cannot be read or the cache written
+     */
+    public static IncrementalIndex open(String sourceName) throws IOException
+    {
+        File source = new File(sourceName);
+        File cache = new File(cacheNameFor(sourceName));
+        if (!source.isFile())
+            throw new java.io.FileNotFoundException(sourceName);
+
+        try (RandomAccessFile oldFile = cache.isFile() ? new RandomAccessFile(cache, "r") : null;
+             FileChannel oldChannel = oldFile == null ? null : oldFile.getChannel())
+        {
+            Cache old = oldChannel == null ? null : Cache.read(oldChannel);
+            if (old != null && old.sourceLength == source.length() &&
+                old.sourceModified == source.lastModified())
+                return new IncrementalIndex(old.dictionary, old.lengths.length,
+                                            old.lengths.length, 0, false);
+
+            return rebuild(source, cache, old);
+        }
+    }
+
+    /**
+     * Splits the file into chunks, counts the chunks not in the old cache,
+     * and writes the new cache.
+     */
+    private static IncrementalIndex rebuild(File source, File cache, Cache old)
+        throws IOException
+    {
+        long sourceLength = source.length();
+        long sourceModified = source.lastModified();
+        try (RandomAccessFile file = new RandomAccessFile(source, "r");
+             FileChannel channel = file.getChannel())
+        {
+            long[] found = split(channel);
+            int n = found.length / 2;
+
+            // old chunks by fingerprint, each used at most once
+            HashMap<Long, ArrayDeque<Integer>> unused = new HashMap<Long, ArrayDeque<Integer>>();
+            WordCounter dictionary = old == null ? new WordCounter() : old.dictionary;
+            if (old != null)
+            {
+                for (int c = 0; c < old.lengths.length; c++)
+                {
+                    unused.computeIfAbsent(old.fingerprints[c] ^ old.lengths[c],
+                                           key -> new ArrayDeque<Integer>()).add(c);
+                }
+            }
+
+            File temp = new File(cache.getPath() + ".tmp");
+            int[] lengths = new int[n];
+            long[] fingerprints = new long[n];
+            long[] places = new long[n];
+            int[] sizes = new int[n];
+            int reused = 0;
+            long tokenizedBytes = 0;
+            ChunkCounter counter = new ChunkCounter(dictionary);
+            try (DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(temp), 1 << 16)))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(sourceLength);
+                out.writeLong(sourceModified);
+                long written = HEADER_SIZE;
+                long start = 0;
+                for (int c = 0; c < n; c++)
+                {
+                    lengths[c] = (int) found[2 * c];
+                    fingerprints[c] = found[2 * c + 1];
+                    ArrayDeque<Integer> same = unused.get(fingerprints[c] ^ lengths[c]);
+                    Integer match = null;
+                    if (same != null)
+                    {
+                        for (Integer o : same)
+                        {
+                            if (old.lengths[o] == lengths[c] && old.fingerprints[o] == fingerprints[c])
+                            {
+                                match = o;
+                                break;
+                            }
+                        }
+                    }
+                    if (match != null)
+                    {
+                        same.remove(match);
+                        sizes[c] = old.sizes[match];
+                        old.copyCounts(match, out);
+                        reused++;
+                    }
+                    else
+                    {
+                        byte[] encoded = counter.count(channel, start, start + lengths[c]);
+                        sizes[c] = counter.encodedLength();
+                        out.write(encoded, 0, sizes[c]);
+                        tokenizedBytes += lengths[c];
+                    }
+                    places[c] = written;
+                    written += sizes[c];
+                    start += lengths[c];
+                }
+
+                // the chunks left over are gone from the file
+                for (ArrayDeque<Integer> gone : unused.values())
+                {
+                    for (int o : gone)
+                        old.subtractCounts(o);
+                }
+
+                long table = written;
+                out.writeInt(n);
+                for (int c = 0; c < n; c++)
+                {
+                    out.writeInt(lengths[c]);
+                    out.writeLong(fingerprints[c]);
+                    out.writeLong(places[c]);
+                    out.writeInt(sizes[c]);
+                }
+                written += 4 + 24L * n;
+
+                long words = written;
+                out.writeInt(dictionary.size());
+                for (int id = 0; id < dictionary.size(); id++)
+                {
+                    String word = dictionary.wordAt(id);
+                    writeVarInt(out, word.length());
+                    for (int i = 0; i < word.length(); i++)
+                        out.write(word.charAt(i));
+                    writeVarInt(out, dictionary.countAt(id));
+                }
+                out.writeLong(table);
+                out.writeLong(words);
+            }
+            Files.move(temp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return new IncrementalIndex(dictionary, n, reused, tokenizedBytes, true);
+        }
+    }
+
+    /**
+     * Returns the counts of the words of the file.  Words that were in an
+     * earlier version of the file but are not any more are left out.
+     *
+     * @return the word counter
+     */
+    public WordCounter getCounts()
+    {
+        if (counts == null)
+        {
+            WordCounter present = new WordCounter(dictionary.size());
+            for (int id = 0; id < dictionary.size(); id++)
+            {
+                if (dictionary.countAt(id) > 0)
+                    present.add(dictionary.wordAt(id), dictionary.countAt(id));
+            }
+            counts = present;
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of chunks the file was split into.
+     *
+     * @return the number of chunks
+     */
+    public int getChunks()
+    {
+        return chunks;
+    }
+
+    /**
+     * Returns how many chunks were found in the cache.
+     *
+     * @return the number of chunks that were not tokenized
+     */
+    public int getReusedChunks()
+    {
+        return reused;
+    }
+
+    /**
+     * Returns how many bytes of the file were tokenized.
+     *
+     * @return the total length of the chunks that were not in the cache
+     */
+    public long getTokenizedBytes()
+    {
+        return tokenizedBytes;
+    }
+
+    /**
+     * Returns whether the file had to be split into chunks again because
+     * its size or modification time changed.
+     *
+     * @return true if the file was read; false if the cache was up to date
+     */
+    public boolean wasScanned()
+    {
+        return scanned;
+    }
+
+    /**
+     * Splits a file into content-defined chunks.  A chunk ends just after
+     * a whitespace byte, so no word is split between chunks.  The rolling
+     * hash only depends on the last 64 bytes, so it is not computed for
+     * the first MIN_CHUNK - 64 bytes of a chunk, which cannot end it.
+     *
+     * @return the length and fingerprint of every chunk, in pairs
+     */
+    private static long[] split(FileChannel channel) throws IOException
+    {
+        long size = channel.size();
+        long[] found = new long[64];
+        int n = 0;
+        long chunkStart = 0;
+        long resume = MIN_CHUNK - 64;    // where the rolling hash starts again
+        long h = 0;
+        boolean pending = false;         // the chunk ends at the next whitespace
+        CRC32C crcC = new CRC32C();
+        CRC32 crc = new CRC32();
+        byte[] bytes = new byte[BLOCK];
+        ByteBuffer block = ByteBuffer.wrap(bytes);
+        long pos = 0;
+        while (pos < size)
+        {
+            block.clear();
+            int end = 0;
+            while (block.hasRemaining() && pos + end < size)
+            {
+                int read = channel.read(block, pos + end);
+                if (read < 0)
+                    break;
+                end += read;
+            }
+            if (end == 0)
+                break;
+            int from = 0;                // the bytes of the chunk not yet fingerprinted
+            int i = (int) Math.max(0, Math.min(end, resume - pos));
+            while (i < end)
+            {
+                if (!pending)
+                {
+                    // roll the hash until it says to cut or the chunk is full
+                    int full = (int) Math.min(end, chunkStart + MAX_CHUNK - pos);
+                    while (i < full)
+                    {
+                        h = (h << 1) + GEAR[bytes[i++] & 0xff];
+                        if ((h >>> (64 - CUT_BITS)) == 0 && pos + i - chunkStart >= MIN_CHUNK)
+                        {
+                            pending = true;
+                            break;
+                        }
+                    }
+                    if (pos + i - chunkStart >= MAX_CHUNK)
+                        pending = true;
+                }
+                else
+                {
+                    // the hash is not needed again until the next chunk
+                    while (i < end && !ByteTokenizer.isSpace(bytes[i]))
+                        i++;
+                    if (i == end)
+                        break;
+                    i++;
+                    crcC.update(bytes, from, i - from);
+                    crc.update(bytes, from, i - from);
+                    if (n + 2 > found.length)
+                        found = Arrays.copyOf(found, found.length * 2);
+                    found[n++] = pos + i - chunkStart;
+                    found[n++] = (crcC.getValue() << 32) | crc.getValue();
+                    crcC.reset();
+                    crc.reset();
+                    from = i;
+                    chunkStart = pos + i;
+                    pending = false;
+                    h = 0;
+                    resume = chunkStart + MIN_CHUNK - 64;
+                    i = (int) Math.min(end, resume - pos);
+                }
+            }
+            crcC.update(bytes, from, end - from);
+            crc.update(bytes, from, end - from);
+            pos += end;
+        }
+        if (chunkStart < size || n == 0)
+        {
+            if (n + 2 > found.length)
+                found = Arrays.copyOf(found, found.length * 2);
+            found[n++] = size - chunkStart;
+            found[n++] = (crcC.getValue() << 32) | crc.getValue();
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    /**
+     * Writes value in 7-bit groups, low group first; the high bit of each
+     * byte is set when more groups follow.
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7f) != 0)
+        {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads a value written by writeVarInt.
+     */
+    private static int readVarInt(ByteBuffer in)
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            b = in.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Counts the words of one chunk into the dictionary, and encodes the
+     * counts of the chunk for the cache.
+     */
+    private static class ChunkCounter implements TokenSink
+    {
+        private final WordCounter dictionary;
+        private final ByteTokenizer tokenizer = new ByteTokenizer();
+        private int[] local = new int[1024];     // count in this chunk, by word id
+        private int[] touched = new int[1024];   // the ids counted in this chunk
+        private int size;
+        private byte[] encoded = new byte[1024];
+        private int length;
+
+        ChunkCounter(WordCounter dictionary)
+        {
+            this.dictionary = dictionary;
+        }
+
+        public void token(byte[] buf, int off, int len, long position)
+        {
+            int id = dictionary.add(buf, off, len);
+            if (id >= local.length)
+                local = Arrays.copyOf(local, Math.max(local.length * 2, id + 1));
+            if (local[id]++ == 0)
+            {
+                if (size == touched.length)
+                    touched = Arrays.copyOf(touched, size * 2);
+                touched[size++] = id;
+            }
+        }
+
+        /**
+         * Counts the words of bytes start .. end-1 and returns their
+         * encoding; encodedLength() bytes of it are used.
+         */
+        byte[] count(FileChannel channel, long start, long end) throws IOException
+        {
+            size = 0;
+            length = 0;
+            tokenizer.tokenize(channel, start, end, this);
+            Arrays.sort(touched, 0, size);
+            putVarInt(size);
+            int previous = 0;
+            for (int i = 0; i < size; i++)
+            {
+                int id = touched[i];
+                putVarInt(id - previous);
+                putVarInt(local[id]);
+                local[id] = 0;
+                previous = id;
+            }
+            return encoded;
+        }
+
+        int encodedLength()
+        {
+            return length;
+        }
+
+        private void putVarInt(int value)
+        {
+            if (length + 5 > encoded.length)
+                encoded = Arrays.copyOf(encoded, encoded.length * 2);
+            while ((value & ~0x7f) != 0)
+            {
+                encoded[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            encoded[length++] = (byte) value;
+        }
+    }
+
+    /**
+     * A cache read back from disk.
+     */
+    private static class Cache
+    {
+        long sourceLength;
+        long sourceModified;
+        int[] lengths;
+        long[] fingerprints;
+        long[] places;
+        int[] sizes;
+        WordCounter dictionary;
+        private MappedByteBuffer map;
+
+        /**
+         * Reads a cache, or returns null if it is damaged or in another
+         * format.
+         */
+        static Cache read(FileChannel channel) throws IOException
+        {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE || size > Integer.MAX_VALUE)
+                return null;
+            Cache cache = new Cache();
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try
+            {
+                if (map.getInt() != MAGIC || map.getInt() != VERSION)
+                    return null;
+                cache.sourceLength = map.getLong();
+                cache.sourceModified = map.getLong();
+                long table = map.getLong((int) size - FOOTER_SIZE);
+                long words = map.getLong((int) size - FOOTER_SIZE + 8);
+                if (table < HEADER_SIZE || table > words || words > size - FOOTER_SIZE)
+                    return null;
+
+                map.position((int) table);
+                int n = map.getInt();
+                if (n < 0 || 24L * n > words - table)
+                    return null;
+                cache.lengths = new int[n];
+                cache.fingerprints = new long[n];
+                cache.places = new long[n];
+                cache.sizes = new int[n];
+                for (int c = 0; c < n; c++)
+                {
+                    cache.lengths[c] = map.getInt();
+                    cache.fingerprints[c] = map.getLong();
+                    cache.places[c] = map.getLong();
+                    cache.sizes[c] = map.getInt();
+                    if (cache.places[c] < HEADER_SIZE || cache.places[c] + cache.sizes[c] > table)
+                        return null;
+                }
+
+                map.position((int) words);
+                int distinct = map.getInt();
+                if (distinct < 0 || distinct > size)
+                    return null;
+                WordCounter dictionary = new WordCounter(distinct);
+                byte[] word = new byte[64];
+                for (int id = 0; id < distinct; id++)
+                {
+                    int length = readVarInt(map);
+                    if (length > word.length)
+                        word = Arrays.copyOf(word, Math.max(word.length * 2, length));
+                    map.get(word, 0, length);
+                    int count = readVarInt(map);
+                    if (dictionary.add(new String(word, 0, length,
+                            java.nio.charset.StandardCharsets.ISO_8859_1), count) != id)
+                        return null;
+                }
+                cache.dictionary = dictionary;
+                cache.map = map;
+                return cache;
+            }
+            catch (java.nio.BufferUnderflowException | IndexOutOfBoundsException
+                   | IllegalArgumentException e)
+            {
+                // a truncated or damaged cache is treated as missing
+                return null;
+            }
+        }
+
+        /**
+         * Copies the encoded counts of chunk c to out.
+         */
+        void copyCounts(int c, DataOutputStream out) throws IOException
+        {
+            ByteBuffer counts = map.duplicate();
+            counts.position((int) places[c]);
+            byte[] buf = new byte[Math.min(sizes[c], 1 << 16)];
+            int left = sizes[c];
+            while (left > 0)
+            {
+                int n = Math.min(left, buf.length);
+                counts.get(buf, 0, n);
+                out.write(buf, 0, n);
+                left -= n;
+            }
+        }
+
+        /**
+         * Takes the counts of chunk c away from the totals.
+         */
+        void subtractCounts(int c)
+        {
+            ByteBuffer counts = map.duplicate();
+            counts.position((int) places[c]);
+            int n = readVarInt(counts);
+            int id = 0;
+            for (int i = 0; i < n; i++)
+            {
+                id += readVarInt(counts);
+                dictionary.add(dictionary.wordAt(id), -readVarInt(counts));
+            }
+        }
+    }
+
+    /**
+     * Reports how long counting a file takes the first time, and again
+     * after an edit near its middle.  The edits are made to a copy of the
+     * file in the temporary directory, which is deleted afterwards; the
+     * file itself is only read.
+     *
+     * @param  args  the pathname of the file (MobyDick.txt by default)
+     * @throws IOException  if the file cannot be read or the copy written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String source = args.length > 0 ? args[0] : "MobyDick.txt";
+        File file = Files.createTempFile("incremental-", ".txt").toFile();
+        String fileName = file.getPath();
+        try
+        {
+            Files.copy(new File(source).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            report("first open", fileName);
+            report("unchanged", fileName);
+
+            byte[] edit = " an edited line \n".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+            long middle = file.length() / 2;
+            byte[] saved = new byte[edit.length];
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw"))
+            {
+                out.seek(middle);
+                out.readFully(saved);
+                out.seek(middle);
+                out.write(edit);
+            }
+            file.setLastModified(file.lastModified() + 1000);
+            report("one-line edit", fileName);
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw"))
+            {
+                out.seek(middle);
+                out.write(saved);
+            }
+            file.setLastModified(file.lastModified() + 1000);
+            report("edit undone", fileName);
+        }
+        finally
+        {
+            file.delete();
+            new File(cacheNameFor(fileName)).delete();
+        }
+    }
+
+    /**
+     * Opens the index of a file and prints what it took.
+     */
+    private static void report(String label, String fileName) throws IOException
+    {
+        long start = System.nanoTime();
+        IncrementalIndex index = open(fileName);
+        WordCounter counts = index.getCounts();
+        double millis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-14s %10.1f ms %8d chunks %8d reused %12d bytes tokenized %12d words\n",
+                          label, millis, index.getChunks(), index.getReusedChunks(),
+                          index.getTokenizedBytes(), counts.getTotal());
+    }
+}
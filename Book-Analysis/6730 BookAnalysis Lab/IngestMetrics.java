@@ -0,0 +1,231 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Counters and timers that show where the time of an analysis goes:
+ * words and bytes per second, comparisons per word counted, list shifts
+ * made by addWord, time spent sorting, and the peak vocabulary size.
+ *
+ * The fine-grained counters, which are updated once per word, are only
+ * kept when the program is started with -Dwordanalysis.metrics=true.
+ * ENABLED is a constant, so when it is false the JIT removes the
+ * counting code entirely.  Ingest and sort timings are cheap and are
+ * always recorded, and are also sent to Java Flight Recorder as the
+ * custom events wordanalysis.Ingest and wordanalysis.Sort.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class IngestMetrics
+{
+    /** Whether the per-word counters are kept. */
+    public static final boolean ENABLED = Boolean.getBoolean("wordanalysis.metrics");
+
+    private String source;
+    private String mode;
+    private long bytes;
+    private long tokens;
+    private long ingestNanos;
+    private long cleanUps;
+    private long cleanUpNanos;
+    private long inserts;
+    private long comparisons;
+    private long shifts;
+    private int sorts;
+    private long sortNanos;
+    private int peakVocabulary;
+
+    /**
+     * Records a finished ingest.
+     *
+     * @param source       the pathname of the file read
+     * @param mode         how it was read
+     * @param bytes        the size of the file
+     * @param counts       the counts made from it
+     * @param nanos        how long reading took
+     */
+    public void ingested(String source, String mode, long bytes, WordCounter counts, long nanos)
+    {
+        ingested(source, mode, bytes, counts.getTotal(), counts.size(), counts.getLookups(),
+                 counts.getProbes(), nanos);
+    }
+
+    /**
+     * Records a finished ingest whose counts are not in a WordCounter.
+     *
+     * @param source       the pathname of the file read
+     * @param mode         how it was read
+     * @param bytes        the size of the file
+     * @param tokens       the number of words counted so far
+     * @param vocabulary   the number of different words
+     * @param lookups      the hash table lookups made by this ingest
+     * @param probes       the table slots those lookups examined
+     * @param nanos        how long reading took
+     */
+    public void ingested(String source, String mode, long bytes, long tokens, int vocabulary,
+                         long lookups, long probes, long nanos)
+    {
+        this.source = source;
+        this.mode = mode;
+        this.bytes += bytes;
+        this.tokens = tokens;
+        this.ingestNanos += nanos;
+        this.inserts += lookups;
+        this.comparisons += probes;
+        vocabulary(vocabulary);
+
+        IngestEvent event = new IngestEvent();
+        if (event.shouldCommit())
+        {
+            event.source = source;
+            event.mode = mode;
+            event.bytes = bytes;
+            event.tokens = tokens;
+            event.vocabulary = vocabulary;
+            event.millis = nanos / 1e6;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records one call of cleanUp.  Only kept when ENABLED.
+     *
+     * @param nanos  how long the call took
+     */
+    public void cleanedUp(long nanos)
+    {
+        cleanUps++;
+        cleanUpNanos += nanos;
+    }
+
+    /**
+     * Records a word counted by one of the sorted-list strategies.  Only
+     * kept when ENABLED.
+     *
+     * @param compared  how many words it was compared with
+     */
+    public void searched(int compared)
+    {
+        inserts++;
+        comparisons += compared;
+    }
+
+    /**
+     * Records a word inserted into the words list by addWord.  Only kept
+     * when ENABLED.
+     *
+     * @param moved  how many words had to move to make room for it
+     */
+    public void shifted(int moved)
+    {
+        shifts += moved;
+    }
+
+    /**
+     * Records a finished sort.
+     *
+     * @param order  the order that was built
+     * @param words  the number of words sorted
+     * @param nanos  how long the sort took
+     */
+    public void sorted(String order, int words, long nanos)
+    {
+        sorts++;
+        sortNanos += nanos;
+
+        SortEvent event = new SortEvent();
+        if (event.shouldCommit())
+        {
+            event.order = order;
+            event.words = words;
+            event.millis = nanos / 1e6;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the current number of distinct words.
+     *
+     * @param size  the number of distinct words
+     */
+    public void vocabulary(int size)
+    {
+        peakVocabulary = Math.max(peakVocabulary, size);
+    }
+
+    /**
+     * Prints a summary of everything recorded.
+     */
+    public void print()
+    {
+        double seconds = ingestNanos / 1e9;
+        System.out.printf("\n\nIngest of %s (%s)\n", source, mode);
+        System.out.printf("%-28s %,16d\n", "Bytes", bytes);
+        System.out.printf("%-28s %,16d\n", "Words", tokens);
+        System.out.printf("%-28s %,16.1f\n", "Milliseconds", ingestNanos / 1e6);
+        System.out.printf("%-28s %,16.0f\n", "Words per second", seconds > 0 ? tokens / seconds : 0);
+        System.out.printf("%-28s %,16.0f\n", "Bytes per second", seconds > 0 ? bytes / seconds : 0);
+        System.out.printf("%-28s %,16d\n", "Peak vocabulary", peakVocabulary);
+        System.out.printf("%-28s %,16d\n", "Sorts", sorts);
+        System.out.printf("%-28s %,16.1f\n", "Sort milliseconds", sortNanos / 1e6);
+        if (!ENABLED)
+        {
+            System.out.println("Start with -Dwordanalysis.metrics=true for per-word counters.");
+            return;
+        }
+        System.out.printf("%-28s %,16.2f\n", "Comparisons per insert",
+                          inserts > 0 ? comparisons / (double) inserts : 0);
+        System.out.printf("%-28s %,16d\n", "List shifts", shifts);
+        System.out.printf("%-28s %,16d\n", "cleanUp calls", cleanUps);
+        System.out.printf("%-28s %,16.1f\n", "cleanUp milliseconds", cleanUpNanos / 1e6);
+    }
+
+    /**
+     * Flight Recorder event for reading a file.
+     */
+    @Name("wordanalysis.Ingest")
+    @Label("Word Analysis Ingest")
+    @Category("Word Analysis")
+    static class IngestEvent extends Event
+    {
+        @Label("Source")
+        String source;
+
+        @Label("Mode")
+        String mode;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Words")
+        long tokens;
+
+        @Label("Vocabulary")
+        int vocabulary;
+
+        @Label("Milliseconds")
+        double millis;
+    }
+
+    /**
+     * Flight Recorder event for sorting the words.
+     */
+    @Name("wordanalysis.Sort")
+    @Label("Word Analysis Sort")
+    @Category("Word Analysis")
+    static class SortEvent extends Event
+    {
+        @Label("Order")
+        String order;
+
+        @Label("Words")
+        int words;
+
+        @Label("Milliseconds")
+        double millis;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * The ways WordAnalysis can read a text file.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public enum IngestMode
+{
+    /** Reads the file with a Scanner, one String per word. */
+    SCANNER,
+
+    /** Memory-maps the file and splits words with a ByteTokenizer. */
+    MAPPED,
+
+    /** Splits the file into ranges and counts them on several threads. */
+    PARALLEL,
+
+    /**
+     * Memory-maps the file like MAPPED and also keeps the text as a
+     * TokenStream of word ids.
+     */
+    ENCODED,
+
+    /**
+     * Memory-maps the file like MAPPED and also builds a ConcordanceIndex
+     * of where every word appears.
+     */
+    CONCORDANCE,
+
+    /**
+     * Memory-maps the file like MAPPED but counts the words approximately
+     * with an ApproximateCounter, in a fixed amount of memory.  Only the
+     * most frequent words are kept.
+     */
+    APPROXIMATE,
+
+    /**
+     * Splits the file into content-defined chunks with an IncrementalIndex
+     * and tokenizes only the chunks that changed since the file was last
+     * read, using the counts cached next to the file for the rest.
+     */
+    INCREMENTAL,
+
+    /**
+     * Counts the words exactly with an ExternalCounter, spilling sorted
+     * runs to disk whenever the counts in memory reach a memory budget and
+     * merging them into a WordTable kept next to the file.
+     */
+    EXTERNAL,
+
+    /**
+     * Memory-maps the file like MAPPED but counts the words in an
+     * OffHeapVocabulary, which keeps no object per word.  Its views are
+     * sorted arrays of word ids, and Word objects are only made for the
+     * words a query hands back.
+     */
+    OFF_HEAP
+}
@@ -0,0 +1,269 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts words lexicographically by looking at their characters rather
+ * than comparing whole words.  Large groups are split by an MSD radix
+ * sort: the words are counted by their character at depth d, and moved
+ * into place through a scratch array.  Smaller groups are finished by a
+ * multikey quicksort (three-way partitioning on the character at depth
+ * d), and the smallest by insertion sort.  A shared prefix is therefore
+ * read once per group instead of once per comparison.
+ *
+ * When there are many words, the groups made by each radix pass are
+ * sorted in parallel by a ForkJoinPool.  The groups are disjoint, so every
+ * task shares the one scratch array, which is allocated once per sort.
+ *
+ * Words are compared by the char values of their text, the order of
+ * String.compareTo.  Equal words may end up in any order.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class LexiconSort
+{
+    // groups at least this big are split by a radix pass ...
+    private static final int RADIX_CUTOFF = 1024;
+    // ... groups smaller than this are finished by insertion sort
+    private static final int INSERTION_CUTOFF = 16;
+    // groups at least this big are sorted in parallel
+    private static final int PARALLEL_CUTOFF = 1 << 16;
+    // characters at or above this share the last radix bucket
+    private static final int RADIX = 256;
+
+    /**
+     * Sorts list lexicographically, in parallel if it is large.
+     *
+     * @param list  the words to be sorted
+     */
+    public static void sort(ArrayList<Word> list)
+    {
+        Word[] a = list.toArray(new Word[0]);
+        sort(a);
+        for (int i = 0; i < a.length; i++)
+            list.set(i, a[i]);
+    }
+
+    /**
+     * Sorts a lexicographically, in parallel if it is large.
+     *
+     * @param a  the words to be sorted
+     */
+    public static void sort(Word[] a)
+    {
+        if (a.length < PARALLEL_CUTOFF || ForkJoinPool.getCommonPoolParallelism() < 2)
+            sortSequential(a);
+        else
+            sortParallel(a, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Sorts a lexicographically on the calling thread.
+     *
+     * @param a  the words to be sorted
+     */
+    public static void sortSequential(Word[] a)
+    {
+        Word[] scratch = a.length >= RADIX_CUTOFF ? new Word[a.length] : null;
+        sort(a, scratch, 0, a.length, 0);
+    }
+
+    /**
+     * Sorts a lexicographically with the threads of pool.
+     *
+     * @param a     the words to be sorted
+     * @param pool  the pool that runs the sort
+     */
+    public static void sortParallel(Word[] a, ForkJoinPool pool)
+    {
+        pool.invoke(new SortTask(a, new Word[a.length], 0, a.length, 0));
+    }
+
+    /**
+     * Sorts a[lo .. hi-1], whose words all agree on their first d
+     * characters.
+     */
+    private static void sort(Word[] a, Word[] scratch, int lo, int hi, int d)
+    {
+        if (hi - lo < RADIX_CUTOFF)
+        {
+            multikey(a, lo, hi, d);
+            return;
+        }
+        int[] start = distribute(a, scratch, lo, hi, d);
+        // bucket 0 holds the words that end at d; they are all equal
+        for (int b = 1; b < RADIX; b++)
+        {
+            if (start[b + 1] - start[b] > 1)
+                sort(a, scratch, start[b], start[b + 1], d + 1);
+        }
+        // the last bucket may mix characters, so it is sorted from d again
+        multikey(a, start[RADIX], start[RADIX + 1], d);
+    }
+
+    /**
+     * Moves the words of a[lo .. hi-1] into buckets by their character at
+     * depth d, keeping their order within a bucket.  Bucket 0 holds the
+     * words with no character at d; bucket c + 1 holds character c.
+     *
+     * @return  bucket b is a[start[b] .. start[b+1]-1]
+     */
+    private static int[] distribute(Word[] a, Word[] scratch, int lo, int hi, int d)
+    {
+        int[] start = new int[RADIX + 2];
+        for (int i = lo; i < hi; i++)
+            start[bucket(a[i], d) + 1]++;
+        start[0] = lo;
+        for (int b = 0; b <= RADIX; b++)
+            start[b + 1] += start[b];
+        int[] next = start.clone();
+        for (int i = lo; i < hi; i++)
+            scratch[next[bucket(a[i], d)]++] = a[i];
+        System.arraycopy(scratch, lo, a, lo, hi - lo);
+        return start;
+    }
+
+    /**
+     * Sorts a[lo .. hi-1] by multikey quicksort, all of whose words agree
+     * on their first d characters.
+     */
+    private static void multikey(Word[] a, int lo, int hi, int d)
+    {
+        while (hi - lo >= INSERTION_CUTOFF)
+        {
+            int pivot = charAt(a[lo + (hi - lo) / 2], d);
+            // a[lo .. lt-1] < pivot, a[lt .. i-1] == pivot, a[gt .. hi-1] > pivot
+            int lt = lo;
+            int gt = hi;
+            int i = lo;
+            while (i < gt)
+            {
+                int c = charAt(a[i], d);
+                if (c < pivot)
+                    swap(a, lt++, i++);
+                else if (c > pivot)
+                    swap(a, i, --gt);
+                else
+                    i++;
+            }
+            multikey(a, lo, lt, d);
+            multikey(a, gt, hi, d);
+            if (pivot < 0)
+                return;
+            // continue with the words equal at d, one character deeper
+            lo = lt;
+            hi = gt;
+            d++;
+        }
+        insertion(a, lo, hi, d);
+    }
+
+    /**
+     * Sorts a[lo .. hi-1] by insertion sort, comparing from depth d.
+     */
+    private static void insertion(Word[] a, int lo, int hi, int d)
+    {
+        for (int i = lo + 1; i < hi; i++)
+        {
+            Word w = a[i];
+            int j = i;
+            while (j > lo && less(w.getWord(), a[j - 1].getWord(), d))
+            {
+                a[j] = a[j - 1];
+                j--;
+            }
+            a[j] = w;
+        }
+    }
+
+    /**
+     * Returns whether s comes before t, given that they agree on their
+     * first d characters.
+     */
+    private static boolean less(String s, String t, int d)
+    {
+        int n = Math.min(s.length(), t.length());
+        for (int i = d; i < n; i++)
+        {
+            char x = s.charAt(i);
+            char y = t.charAt(i);
+            if (x != y)
+                return x < y;
+        }
+        return s.length() < t.length();
+    }
+
+    /**
+     * Returns the character of w at depth d, or -1 if w is shorter.
+     */
+    private static int charAt(Word w, int d)
+    {
+        String s = w.getWord();
+        return d < s.length() ? s.charAt(d) : -1;
+    }
+
+    /**
+     * Returns the radix bucket of w at depth d.  Characters beyond the
+     * radix share the last bucket, and are put in order by the multikey
+     * quicksort that finishes it.
+     */
+    private static int bucket(Word w, int d)
+    {
+        return Math.min(RADIX, charAt(w, d) + 1);
+    }
+
+    /**
+     * Swaps a[i] and a[j].
+     */
+    private static void swap(Word[] a, int i, int j)
+    {
+        Word t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    /**
+     * Sorts a[lo .. hi-1], whose words all agree on their first d
+     * characters, splitting it by a radix pass and sorting the buckets as
+     * subtasks while they are large.
+     */
+    private static class SortTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Word[] a;
+        private final Word[] scratch;
+        private final int lo;
+        private final int hi;
+        private final int d;
+
+        SortTask(Word[] a, Word[] scratch, int lo, int hi, int d)
+        {
+            this.a = a;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.d = d;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (hi - lo < PARALLEL_CUTOFF)
+            {
+                sort(a, scratch, lo, hi, d);
+                return;
+            }
+            int[] start = distribute(a, scratch, lo, hi, d);
+            ArrayList<SortTask> tasks = new ArrayList<SortTask>();
+            for (int b = 1; b < RADIX; b++)
+            {
+                if (start[b + 1] - start[b] > 1)
+                    tasks.add(new SortTask(a, scratch, start[b], start[b + 1], d + 1));
+            }
+            invokeAll(tasks);
+            multikey(a, start[RADIX], start[RADIX + 1], d);
+        }
+    }
+}
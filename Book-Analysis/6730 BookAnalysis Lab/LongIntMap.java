@@ -0,0 +1,160 @@
+import java.util.Arrays;
+
+/**
+ * Maps long keys to int counts with an open-addressing hash table, without
+ * boxing.  Like WordCounter, each key gets a dense index in the order it
+ * is first added, and the keys and counts are kept in parallel arrays
+ * indexed by it.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class LongIntMap
+{
+    // hash table of (index + 1); 0 marks an empty slot
+    private int[] table;
+    private int mask;
+
+    // parallel arrays indexed by entry
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    private long total;   // the sum of all the values
+
+    /**
+     * Constructor for objects of class LongIntMap.
+     */
+    public LongIntMap()
+    {
+        table = new int[1024];
+        mask = table.length - 1;
+        keys = new long[table.length / 2];
+        values = new int[table.length / 2];
+    }
+
+    /**
+     * Adds amount to the value of key, adding key if it is not there.
+     *
+     * @param key     the key
+     * @param amount  how much to add
+     * @return        the index of key
+     */
+    public int add(long key, int amount)
+    {
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0)
+        {
+            if (keys[entry - 1] == key)
+            {
+                values[entry - 1] += amount;
+                total += amount;
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int index = size;
+        if (index == keys.length)
+        {
+            keys = Arrays.copyOf(keys, index * 2);
+            values = Arrays.copyOf(values, index * 2);
+        }
+        keys[index] = key;
+        values[index] = amount;
+        table[slot] = index + 1;
+        size++;
+        total += amount;
+        if (size * 2 > table.length)
+            rehash();
+        return index;
+    }
+
+    /**
+     * Returns the value of key.
+     *
+     * @param key  the key
+     * @return     the value of key, or 0 if key is not there
+     */
+    public int get(long key)
+    {
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0)
+        {
+            if (keys[entry - 1] == key)
+                return values[entry - 1];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the key with the given index.
+     *
+     * @param index  the index of the entry
+     * @return       its key
+     */
+    public long keyAt(int index)
+    {
+        return keys[index];
+    }
+
+    /**
+     * Returns the value with the given index.
+     *
+     * @param index  the index of the entry
+     * @return       its value
+     */
+    public int valueAt(int index)
+    {
+        return values[index];
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the number of keys
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the sum of all the values.
+     *
+     * @return the total of the values
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Doubles the hash table, keeping it at most half full.
+     */
+    private void rehash()
+    {
+        table = new int[table.length * 2];
+        mask = table.length - 1;
+        for (int index = 0; index < size; index++)
+        {
+            int slot = hash(keys[index]) & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Mixes the bits of key into an int.
+     */
+    private static int hash(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
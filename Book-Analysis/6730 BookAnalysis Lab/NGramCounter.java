@@ -0,0 +1,240 @@
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Counts the n-grams of a text: every run of n words in a row.  Words are
+ * interned to integer ids by a WordCounter as they are read, and each
+ * n-gram is packed into one long, n ids of 63/n bits each, which is
+ * counted in a LongIntMap.  No String is made for an n-gram until it is
+ * reported.
+ *
+ * The words are taken in order across sentence and line breaks, the same
+ * way WordAnalysis reads them.  n may be 1, 2 or 3; a trigram can use
+ * word ids up to 2^21, a bigram up to 2^31.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class NGramCounter implements TokenSink
+{
+    private final int n;
+    private final int bits;        // bits per word id in a key
+    private final long keyMask;    // the bits used by n ids
+    private final WordCounter words;
+    private final LongIntMap grams;
+
+    private long window;           // the ids of the last n words
+    private int filled;            // how many words are in window
+
+    /**
+     * Constructor for objects of class NGramCounter.
+     *
+     * @param n  the number of words in each n-gram
+     */
+    public NGramCounter(int n)
+    {
+        this(n, new WordCounter());
+    }
+
+    /**
+     * Constructor for objects of class NGramCounter whose word ids come
+     * from an existing dictionary.
+     *
+     * @param n      the number of words in each n-gram
+     * @param words  the dictionary the word ids refer to
+     */
+    public NGramCounter(int n, WordCounter words)
+    {
+        if (n < 1 || n > 3)
+            throw new IllegalArgumentException("n must be 1, 2 or 3: " + n);
+        this.n = n;
+        bits = 63 / n;
+        keyMask = (1L << (n * bits)) - 1;
+        this.words = words;
+        grams = new LongIntMap();
+    }
+
+    /**
+     * Counts the n-grams of a file.
+     *
+     * @param fileName   the pathname of the file
+     * @param n          the number of words in each n-gram
+     * @return           the counts
+     * @throws IOException file is not found
+     */
+    public static NGramCounter count(String fileName, int n) throws IOException
+    {
+        NGramCounter counter = new NGramCounter(n);
+        new ByteTokenizer().tokenize(fileName, counter);
+        return counter;
+    }
+
+    /**
+     * Counts the n-grams of a token stream without reading the text again.
+     *
+     * @param stream  the words of the text as ids
+     * @param n       the number of words in each n-gram
+     * @return        the counts
+     */
+    public static NGramCounter count(TokenStream stream, int n)
+    {
+        NGramCounter counter = new NGramCounter(n, stream.getDictionary());
+        for (int p = 0; p < stream.size(); p++)
+            counter.add(stream.idAt(p));
+        return counter;
+    }
+
+    /**
+     * Counts the next word of the text, and the n-gram it ends.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     */
+    public void token(byte[] buf, int off, int len, long position)
+    {
+        add(words.add(buf, off, len));
+    }
+
+    /**
+     * Counts the next word of the text, given as a word id, and the
+     * n-gram it ends.
+     *
+     * @param id  the id of the word in getWords()
+     */
+    public void add(int id)
+    {
+        if (id >>> bits != 0)
+            throw new IllegalStateException("too many different words for " + n + "-grams");
+        window = ((window << bits) | id) & keyMask;
+        if (filled < n)
+            filled++;
+        if (filled == n)
+            grams.add(window, 1);
+    }
+
+    /**
+     * Returns how many times an n-gram appears.
+     *
+     * @param gram  the n words of the n-gram, separated by single spaces
+     * @return      the count of gram, or 0 if it does not appear
+     */
+    public int getCount(String gram)
+    {
+        String[] parts = gram.split(" ");
+        if (parts.length != n)
+            return 0;
+        long key = 0;
+        for (String part : parts)
+        {
+            int id = words.indexOf(part);
+            if (id < 0)
+                return 0;
+            key = (key << bits) | id;
+        }
+        return grams.get(key);
+    }
+
+    /**
+     * Finds the k most frequent n-grams without sorting all of them.
+     *
+     * @param k  the number of n-grams wanted
+     * @return   the k most frequent n-grams, most frequent first; n-grams
+     *           with the same frequency are in lexicographic order
+     */
+    public ArrayList<Word> topNGrams(int k)
+    {
+        int[] best = TopK.select(grams.size(), k, this::ranksBefore);
+        ArrayList<Word> result = new ArrayList<Word>(best.length);
+        for (int index : best)
+            result.add(new Word(text(grams.keyAt(index)), grams.valueAt(index)));
+        return result;
+    }
+
+    /**
+     * Makes a WordCounter whose words are the n-grams, so they can be
+     * printed, sorted and searched by a WordAnalysis.
+     *
+     * @return the n-grams and their counts
+     */
+    public WordCounter toWordCounter()
+    {
+        WordCounter result = new WordCounter(grams.size());
+        for (int index = 0; index < grams.size(); index++)
+            result.add(text(grams.keyAt(index)), grams.valueAt(index));
+        return result;
+    }
+
+    /**
+     * Returns the counts of the single words, which are made along the way.
+     *
+     * @return the word counts
+     */
+    public WordCounter getWords()
+    {
+        return words;
+    }
+
+    /**
+     * Returns the number of different n-grams.
+     *
+     * @return the number of different n-grams
+     */
+    public int size()
+    {
+        return grams.size();
+    }
+
+    /**
+     * Returns the number of n-grams counted, repetitions included.
+     *
+     * @return the total of all the counts
+     */
+    public long getTotal()
+    {
+        return grams.getTotal();
+    }
+
+    /**
+     * Returns the words of a packed n-gram, separated by single spaces.
+     */
+    private String text(long key)
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = n - 1; i >= 0; i--)
+        {
+            if (text.length() > 0)
+                text.append(' ');
+            text.append(words.wordAt(idAt(key, i)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the id of word i of a packed n-gram, counting from the last.
+     */
+    private int idAt(long key, int i)
+    {
+        return (int) ((key >>> (i * bits)) & ((1L << bits) - 1));
+    }
+
+    /**
+     * Returns whether n-gram a comes before n-gram b: more frequent first,
+     * then in lexicographic order, compared word by word.
+     */
+    private boolean ranksBefore(int a, int b)
+    {
+        if (grams.valueAt(a) != grams.valueAt(b))
+            return grams.valueAt(a) > grams.valueAt(b);
+        long keyA = grams.keyAt(a);
+        long keyB = grams.keyAt(b);
+        for (int i = n - 1; i >= 0; i--)
+        {
+            int c = words.wordAt(idAt(keyA, i)).compareTo(words.wordAt(idAt(keyB, i)));
+            if (c != 0)
+                return c < 0;
+        }
+        return false;
+    }
+}
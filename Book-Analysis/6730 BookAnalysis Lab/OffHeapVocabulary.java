@@ -0,0 +1,503 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Counts how often each word appears, like WordCounter, but without an
+ * object per word.  The bytes of the words are copied one after another
+ * into an arena of direct (off-heap) buffers, and each distinct word is a
+ * record of primitive values: where its bytes are in the arena, how many
+ * there are, its hash and its count.  The heap holds only a few arrays
+ * however many words there are, so the garbage collector has nothing to
+ * trace per word.
+ *
+ * Strings and Word objects are only made for the words handed back to a
+ * caller, by wordAt, wordOf, toList and topWords.  The words are put in
+ * order by sorting arrays of ids, comparing their bytes where they lie in
+ * the arena, and a sorted array of ids is searched the same way.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class OffHeapVocabulary implements TokenSink
+{
+    // the arena grows one chunk at a time; no word is split between chunks
+    private static final int CHUNK = 1 << 24;
+
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+    private ByteBuffer current;     // the chunk words are being added to
+    private long arenaBytes;        // bytes of all the chunks
+
+    // hash table of (id + 1); 0 marks an empty slot
+    private int[] table;
+    private int mask;
+
+    // parallel arrays indexed by word id
+    private long[] places;          // (chunk << 32) | position of the bytes
+    private int[] lengths;
+    private int[] hashes;
+    private int[] counts;
+    private int size;
+
+    private long total;             // number of words counted, repetitions included
+
+    /**
+     * Constructor for objects of class OffHeapVocabulary.
+     */
+    public OffHeapVocabulary()
+    {
+        table = new int[2048];
+        mask = table.length - 1;
+        places = new long[1024];
+        lengths = new int[1024];
+        hashes = new int[1024];
+        counts = new int[1024];
+    }
+
+    /**
+     * Counts the words of a file.
+     *
+     * @param fileName   the pathname of the file
+     * @return           the counts
+     * @throws IOException file is not found
+     */
+    public static OffHeapVocabulary count(String fileName) throws IOException
+    {
+        OffHeapVocabulary vocabulary = new OffHeapVocabulary();
+        new ByteTokenizer().tokenize(fileName, vocabulary);
+        return vocabulary;
+    }
+
+    /**
+     * Counts the next word of the text.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     */
+    public void token(byte[] buf, int off, int len, long position)
+    {
+        add(buf, off, len);
+    }
+
+    /**
+     * Adds one to the count of the word stored in buf[off .. off+len-1].
+     * The bytes are copied into the arena the first time the word is seen.
+     *
+     * @param buf  the bytes holding the word
+     * @param off  the position of the first byte of the word
+     * @param len  the number of bytes in the word
+     * @return     the id of the word
+     */
+    public int add(byte[] buf, int off, int len)
+    {
+        int h = WordCounter.hash(buf, off, len);
+        int slot = h & mask;
+        int entry;
+        while ((entry = table[slot]) != 0)
+        {
+            int id = entry - 1;
+            if (hashes[id] == h && matches(id, buf, off, len))
+            {
+                counts[id]++;
+                total++;
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = size;
+        if (id == places.length)
+        {
+            places = Arrays.copyOf(places, id * 2);
+            lengths = Arrays.copyOf(lengths, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+            counts = Arrays.copyOf(counts, id * 2);
+        }
+        places[id] = store(buf, off, len);
+        lengths[id] = len;
+        hashes[id] = h;
+        counts[id] = 1;
+        table[slot] = id + 1;
+        size++;
+        total++;
+        if (size * 2 > table.length)
+            rehash();
+        return id;
+    }
+
+    /**
+     * Returns the id of txt.
+     *
+     * @param txt  the word to be found
+     * @return     the id of txt, or -1 if txt has not been counted
+     */
+    public int indexOf(String txt)
+    {
+        byte[] bytes = txt.getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+        int h = WordCounter.hash(bytes, 0, bytes.length);
+        int slot = h & mask;
+        int entry;
+        while ((entry = table[slot]) != 0)
+        {
+            int id = entry - 1;
+            if (hashes[id] == h && matches(id, bytes, 0, bytes.length))
+                return id;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns how many times txt was counted.
+     *
+     * @param txt  the word to be found
+     * @return     the count of txt, or 0 if it has not been counted
+     */
+    public int getCount(String txt)
+    {
+        int id = indexOf(txt);
+        return id < 0 ? 0 : counts[id];
+    }
+
+    /**
+     * Makes a String of the word with the given id.
+     *
+     * @param id  the id of the word
+     * @return    the text of the word
+     */
+    public String wordAt(int id)
+    {
+        ByteBuffer chunk = chunks.get((int) (places[id] >>> 32));
+        int at = (int) places[id];
+        byte[] bytes = new byte[lengths[id]];
+        chunk.get(at, bytes);
+        return new String(bytes, java.nio.charset.StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Makes a Word of the word with the given id.
+     *
+     * @param id  the id of the word
+     * @return    the word and its count
+     */
+    public Word wordOf(int id)
+    {
+        return new Word(wordAt(id), counts[id]);
+    }
+
+    /**
+     * Returns the count of the word with the given id.
+     *
+     * @param id  the id of the word
+     * @return    how many times the word was counted
+     */
+    public int countAt(int id)
+    {
+        return counts[id];
+    }
+
+    /**
+     * Returns the number of distinct words.
+     *
+     * @return the number of distinct words counted
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of words counted, repetitions included.
+     *
+     * @return the total of all the counts
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Returns how many off-heap bytes the arena has allocated.
+     *
+     * @return the size of all the chunks of the arena
+     */
+    public long getArenaBytes()
+    {
+        return arenaBytes;
+    }
+
+    /**
+     * Creates a Word for every distinct word, in the order the words were
+     * first seen.
+     *
+     * @return the words and their counts, ordered by id
+     */
+    public ArrayList<Word> toList()
+    {
+        ArrayList<Word> list = new ArrayList<Word>(size);
+        for (int id = 0; id < size; id++)
+            list.add(new Word(wordAt(id), counts[id]));
+        return list;
+    }
+
+    /**
+     * Finds the k most frequent words without sorting all of them.  Only
+     * the k words returned are made into Strings.
+     *
+     * @param k  the number of words wanted
+     * @return   the k most frequent words, most frequent first; words with
+     *           the same frequency are in lexicographic order
+     */
+    public ArrayList<Word> topWords(int k)
+    {
+        int[] best = TopK.select(size, k, this::ranksBefore);
+        ArrayList<Word> result = new ArrayList<Word>(best.length);
+        for (int id : best)
+            result.add(new Word(wordAt(id), counts[id]));
+        return result;
+    }
+
+    /**
+     * Returns the ids of the words in lexicographic order.  No String is
+     * made; the bytes of the words are compared in the arena.
+     *
+     * @return every id, ordered by the text of its word
+     */
+    public int[] sortedIds()
+    {
+        int[] ids = new int[size];
+        for (int id = 0; id < size; id++)
+            ids[id] = id;
+        sort(ids, (a, b) -> compare(a, b) < 0);
+        return ids;
+    }
+
+    /**
+     * Orders ids by frequency, most frequent first.  The sort is stable,
+     * so ids given in lexicographic order keep that order among words
+     * with the same frequency.
+     *
+     * @param ids  the ids to be ordered, such as those from sortedIds
+     * @return     a new array of the same ids ordered by frequency
+     */
+    public int[] byFrequency(int[] ids)
+    {
+        int[] sorted = ids.clone();
+        sort(sorted, (a, b) -> counts[a] > counts[b]);
+        return sorted;
+    }
+
+    /**
+     * Finds where key would go in ids sorted by sortedIds.
+     *
+     * @param sorted  ids in lexicographic order
+     * @param key     the word searched for
+     * @return        the first position whose word is not before key
+     */
+    public int lowerBound(int[] sorted, String key)
+    {
+        return search(sorted, key.getBytes(java.nio.charset.StandardCharsets.ISO_8859_1), false);
+    }
+
+    /**
+     * Finds the end of the words starting with prefix in ids sorted by
+     * sortedIds.  They lie from lowerBound(sorted, prefix) up to it.
+     *
+     * @param sorted  ids in lexicographic order
+     * @param prefix  the start of the words wanted
+     * @return        the first position after lowerBound(sorted, prefix)
+     *                whose word does not start with prefix
+     */
+    public int prefixEnd(int[] sorted, String prefix)
+    {
+        return search(sorted, prefix.getBytes(java.nio.charset.StandardCharsets.ISO_8859_1), true);
+    }
+
+    /**
+     * Binary searches sorted for the first word that is not before key.
+     * If prefix is true, words starting with key count as before it.
+     */
+    private int search(int[] sorted, byte[] key, boolean prefix)
+    {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            int c = compare(sorted[mid], key);
+            if (c < 0 || (prefix && startsWith(sorted[mid], key)))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Sorts ids by a ranking with a merge sort, which is stable.  Short
+     * runs are sorted by insertion first.
+     */
+    private static void sort(int[] ids, TopK.Ranking ranking)
+    {
+        final int RUN = 16;
+        int n = ids.length;
+        for (int low = 0; low < n; low += RUN)
+        {
+            int high = Math.min(low + RUN, n);
+            for (int i = low + 1; i < high; i++)
+            {
+                int id = ids[i];
+                int j = i - 1;
+                while (j >= low && ranking.ranksBefore(id, ids[j]))
+                {
+                    ids[j + 1] = ids[j];
+                    j--;
+                }
+                ids[j + 1] = id;
+            }
+        }
+        int[] from = ids;
+        int[] to = new int[n];
+        for (int width = RUN; width < n; width *= 2)
+        {
+            for (int low = 0; low < n; low += 2 * width)
+            {
+                int mid = Math.min(low + width, n);
+                int high = Math.min(low + 2 * width, n);
+                int a = low;
+                int b = mid;
+                for (int k = low; k < high; k++)
+                {
+                    if (b < high && (a == mid || ranking.ranksBefore(from[b], from[a])))
+                        to[k] = from[b++];
+                    else
+                        to[k] = from[a++];
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != ids)
+            System.arraycopy(from, 0, ids, 0, n);
+    }
+
+    /**
+     * Returns whether the word with id a comes before the word with id b
+     * when words are ordered by frequency.
+     */
+    private boolean ranksBefore(int a, int b)
+    {
+        if (counts[a] != counts[b])
+            return counts[a] > counts[b];
+        return compare(a, b) < 0;
+    }
+
+    /**
+     * Compares the bytes of two words as unsigned values, which is the
+     * lexicographic order of their Strings.
+     */
+    private int compare(int a, int b)
+    {
+        ByteBuffer chunkA = chunks.get((int) (places[a] >>> 32));
+        ByteBuffer chunkB = chunks.get((int) (places[b] >>> 32));
+        int atA = (int) places[a];
+        int atB = (int) places[b];
+        int common = Math.min(lengths[a], lengths[b]);
+        for (int i = 0; i < common; i++)
+        {
+            int c = (chunkA.get(atA + i) & 0xff) - (chunkB.get(atB + i) & 0xff);
+            if (c != 0)
+                return c;
+        }
+        return lengths[a] - lengths[b];
+    }
+
+    /**
+     * Compares the bytes of a word with key as unsigned values.
+     */
+    private int compare(int id, byte[] key)
+    {
+        ByteBuffer chunk = chunks.get((int) (places[id] >>> 32));
+        int at = (int) places[id];
+        int common = Math.min(lengths[id], key.length);
+        for (int i = 0; i < common; i++)
+        {
+            int c = (chunk.get(at + i) & 0xff) - (key[i] & 0xff);
+            if (c != 0)
+                return c;
+        }
+        return lengths[id] - key.length;
+    }
+
+    /**
+     * Returns whether the word with the given id starts with prefix.
+     */
+    private boolean startsWith(int id, byte[] prefix)
+    {
+        if (lengths[id] < prefix.length)
+            return false;
+        ByteBuffer chunk = chunks.get((int) (places[id] >>> 32));
+        int at = (int) places[id];
+        for (int i = 0; i < prefix.length; i++)
+        {
+            if (chunk.get(at + i) != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies buf[off .. off+len-1] into the arena.
+     *
+     * @return where the bytes were put, as (chunk << 32) | position
+     */
+    private long store(byte[] buf, int off, int len)
+    {
+        if (current == null || current.remaining() < len)
+        {
+            current = ByteBuffer.allocateDirect(Math.max(CHUNK, len));
+            chunks.add(current);
+            arenaBytes += current.capacity();
+        }
+        long place = ((long) (chunks.size() - 1) << 32) | current.position();
+        current.put(buf, off, len);
+        return place;
+    }
+
+    /**
+     * Returns whether the word with the given id has exactly the bytes in
+     * buf[off .. off+len-1].
+     */
+    private boolean matches(int id, byte[] buf, int off, int len)
+    {
+        if (lengths[id] != len)
+            return false;
+        ByteBuffer chunk = chunks.get((int) (places[id] >>> 32));
+        int at = (int) places[id];
+        for (int i = 0; i < len; i++)
+        {
+            if (chunk.get(at + i) != buf[off + i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the hash table, keeping it at most half full.
+     */
+    private void rehash()
+    {
+        table = new int[table.length * 2];
+        mask = table.length - 1;
+        for (int id = 0; id < size; id++)
+        {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = id + 1;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Counts the words of a file on several threads.  The file is split into
+ * byte ranges that start and end at whitespace, each range is counted
+ * into its own WordCounter by a ForkJoinPool worker, and the partial
+ * counters are merged as the tasks finish.  The merged counts are the
+ * same as counting the whole file on one thread.  The number of different
+ * words can be estimated the same way, with a HyperLogLog per range.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class ParallelIngest
+{
+    // ranges smaller than this are not split further
+    private static final long MIN_RANGE = 1L << 20;
+    // how many ranges each thread gets, so faster threads can take more
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * Counts the words of a file using the given number of threads.
+     *
+     * @param fileName   the pathname of the file
+     * @param threads    the number of worker threads
+     * @return           the counts of every word in the file
+     * @throws IOException file is not found
+     */
+    public static WordCounter count(String fileName, int threads) throws IOException
+    {
+        return reduce(fileName, threads, WordCounter::new,
+                      counts -> (buf, off, len, position) -> counts.add(buf, off, len),
+                      ParallelIngest::merge);
+    }
+
+    /**
+     * Estimates the number of different words in a file using the given
+     * number of threads.  Each range gets its own HyperLogLog, and they are
+     * merged as the tasks finish.
+     *
+     * @param fileName   the pathname of the file
+     * @param threads    the number of worker threads
+     * @return           the merged estimator
+     * @throws IOException file is not found
+     */
+    public static HyperLogLog countDistinct(String fileName, int threads) throws IOException
+    {
+        return reduce(fileName, threads, HyperLogLog::new, distinct -> distinct,
+                      (distinct, other) -> { distinct.merge(other); return distinct; });
+    }
+
+    /**
+     * Reads the ranges of a file on the given number of threads, feeding
+     * each range to its own partial result and merging the partial results.
+     *
+     * @param fileName   the pathname of the file
+     * @param threads    the number of worker threads
+     * @param make       makes an empty partial result
+     * @param sinkOf     gives the sink that feeds a partial result
+     * @param merge      merges two partial results into one
+     * @return           the merged result
+     * @throws IOException file is not found
+     */
+    private static <T> T reduce(String fileName, int threads, Supplier<T> make,
+                                Function<T, TokenSink> sinkOf, BinaryOperator<T> merge)
+        throws IOException
+    {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+             FileChannel channel = file.getChannel())
+        {
+            long[] bounds = split(channel, threads * RANGES_PER_THREAD);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try
+            {
+                return pool.invoke(new RangeTask<T>(channel, bounds, 0, bounds.length - 1,
+                                                    make, sinkOf, merge));
+            }
+            catch (java.io.UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Splits a file into about the given number of ranges.  Every boundary
+     * but the first and last is moved forward to the next whitespace byte,
+     * so no word is split between two ranges.
+     *
+     * @param channel  the open file
+     * @param pieces   the number of ranges wanted
+     * @return         the boundaries; range i is bounds[i] .. bounds[i+1]-1
+     * @throws IOException the file cannot be read
+     */
+    static long[] split(FileChannel channel, int pieces) throws IOException
+    {
+        long size = channel.size();
+        long step = Math.max(MIN_RANGE, (size + pieces - 1) / pieces);
+        ArrayList<Long> bounds = new ArrayList<Long>();
+        bounds.add(0L);
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long pos = step;
+        while (pos < size)
+        {
+            pos = nextSpace(channel, pos, buf);
+            if (pos < size)
+                bounds.add(pos);
+            pos += step;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = bounds.get(i);
+        return result;
+    }
+
+    /**
+     * Returns the offset of the first whitespace byte at or after pos, or
+     * the size of the file if there is none.
+     */
+    private static long nextSpace(FileChannel channel, long pos, ByteBuffer buf)
+        throws IOException
+    {
+        while (true)
+        {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0)
+                return channel.size();
+            for (int i = 0; i < n; i++)
+            {
+                if (ByteTokenizer.isSpace(buf.get(i)))
+                    return pos + i;
+            }
+            pos += n;
+        }
+    }
+
+    /**
+     * Merges two partial counts, adding the smaller table into the larger one.
+     */
+    private static WordCounter merge(WordCounter counts, WordCounter other)
+    {
+        if (other.size() > counts.size())
+        {
+            other.addAll(counts);
+            return other;
+        }
+        counts.addAll(other);
+        return counts;
+    }
+
+    /**
+     * Reads the ranges first .. last-1, splitting them between two
+     * subtasks when there is more than one.
+     */
+    private static class RangeTask<T> extends RecursiveTask<T>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int first;
+        private final int last;
+        private final Supplier<T> make;
+        private final Function<T, TokenSink> sinkOf;
+        private final BinaryOperator<T> merge;
+
+        RangeTask(FileChannel channel, long[] bounds, int first, int last,
+                  Supplier<T> make, Function<T, TokenSink> sinkOf, BinaryOperator<T> merge)
+        {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+            this.make = make;
+            this.sinkOf = sinkOf;
+            this.merge = merge;
+        }
+
+        @Override
+        protected T compute()
+        {
+            if (last - first == 1)
+            {
+                T part = make.get();
+                try
+                {
+                    new ByteTokenizer().tokenize(channel, bounds[first], bounds[last],
+                                                 sinkOf.apply(part));
+                }
+                catch (IOException e)
+                {
+                    throw new java.io.UncheckedIOException(e);
+                }
+                return part;
+            }
+            int mid = (first + last) / 2;
+            RangeTask<T> left = new RangeTask<T>(channel, bounds, first, mid, make, sinkOf, merge);
+            RangeTask<T> right = new RangeTask<T>(channel, bounds, mid, last, make, sinkOf, merge);
+            left.fork();
+            T part = right.compute();
+            return merge.apply(part, left.join());
+        }
+    }
+
+    /**
+     * Reports how long counting a file takes with 1 up to N threads.
+     *
+     * @param  args  the pathname of the file, and optionally the largest
+     *               number of threads to try (all cores by default)
+     * @throws IOException  if the file cannot be found
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String fileName = args.length > 0 ? args[0] : "MobyDick.txt";
+        int most = args.length > 1 ? Integer.parseInt(args[1])
+                                   : Runtime.getRuntime().availableProcessors();
+        // warm up so the first timing does not include compilation
+        for (int i = 0; i < 3; i++)
+            count(fileName, most);
+        System.out.printf("%-8s %10s %8s\n", "Threads", "Millis", "Speedup");
+        double single = 0;
+        for (int threads = 1; threads <= most; threads++)
+        {
+            long start = System.nanoTime();
+            count(fileName, threads);
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (threads == 1)
+                single = millis;
+            System.out.printf("%-8d %10.1f %8.2f\n", threads, millis, single / millis);
+        }
+    }
+}
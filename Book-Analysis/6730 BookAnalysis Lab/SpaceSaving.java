@@ -0,0 +1,265 @@
+import java.util.ArrayList;
+
+/**
+ * Finds the most frequent words of a text while keeping only a fixed
+ * number of counters (the Space-Saving algorithm).  A word that is being
+ * counted has its counter increased.  A new word takes over the counter
+ * with the smallest count, starting from that count plus one; the count
+ * it took over is remembered as the word's error.
+ *
+ * The count of a monitored word is never below its true count, and at
+ * most its error above it.  Every word whose true count is more than the
+ * number of words counted divided by the number of counters is monitored.
+ *
+ * Counters are kept in a min-heap by count, and found through an
+ * open-addressing hash table on the bytes of the word, so a String is only
+ * made when a word starts being monitored.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class SpaceSaving
+{
+    private final int capacity;
+
+    // parallel arrays indexed by counter
+    private final String[] words;
+    private final int[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heapIndex;   // where each counter is in heap
+    private int size;
+
+    private final int[] heap;        // counters, smallest count first
+    private final int[] table;       // hash table of (counter + 1); 0 marks an empty slot
+    private final int mask;
+
+    /**
+     * Constructor for objects of class SpaceSaving.
+     *
+     * @param capacity  the number of counters
+     */
+    public SpaceSaving(int capacity)
+    {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        words = new String[capacity];
+        hashes = new int[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heapIndex = new int[capacity];
+        heap = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        mask = table.length - 1;
+    }
+
+    /**
+     * Counts one appearance of the word in buf[off .. off+len-1].
+     *
+     * @param buf   the bytes holding the word
+     * @param off   the position of the first byte of the word
+     * @param len   the number of bytes in the word
+     * @param hash  the hash of the word, from WordCounter.hash
+     */
+    public void add(byte[] buf, int off, int len, int hash)
+    {
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0)
+        {
+            int c = entry - 1;
+            if (hashes[c] == hash && matches(words[c], buf, off, len))
+            {
+                counts[c]++;
+                siftDown(heapIndex[c]);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String txt = new String(buf, off, len, java.nio.charset.StandardCharsets.ISO_8859_1);
+        int c;
+        if (size < capacity)
+        {
+            c = size;
+            heap[size] = c;
+            heapIndex[c] = size;
+            size++;
+            counts[c] = 0;
+            errors[c] = 0;
+        }
+        else
+        {
+            // take over the counter with the smallest count
+            c = heap[0];
+            remove(c);
+            errors[c] = counts[c];
+            slot = hash & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+        }
+        words[c] = txt;
+        hashes[c] = hash;
+        counts[c]++;
+        table[slot] = c + 1;
+        siftUp(heapIndex[c]);
+        siftDown(heapIndex[c]);
+    }
+
+    /**
+     * Returns the count of txt if it is monitored.
+     *
+     * @param txt  the word
+     * @return     its count, which is at least its true count, or -1 if it
+     *             is not monitored
+     */
+    public long getCount(String txt)
+    {
+        int c = find(txt);
+        return c < 0 ? -1 : counts[c];
+    }
+
+    /**
+     * Returns how far the count of txt may be above its true count.
+     *
+     * @param txt  the word
+     * @return     its error, or -1 if it is not monitored
+     */
+    public long getError(String txt)
+    {
+        int c = find(txt);
+        return c < 0 ? -1 : errors[c];
+    }
+
+    /**
+     * Returns the monitored words with their counts, most frequent first;
+     * words with the same count are in lexicographic order.
+     *
+     * @param k  the number of words wanted
+     * @return   up to k monitored words
+     */
+    public ArrayList<Word> topWords(int k)
+    {
+        int[] best = TopK.select(size, k, (a, b) ->
+            counts[a] != counts[b] ? counts[a] > counts[b] : words[a].compareTo(words[b]) < 0);
+        ArrayList<Word> result = new ArrayList<Word>(best.length);
+        for (int c : best)
+            result.add(new Word(words[c], (int) Math.min(Integer.MAX_VALUE, counts[c])));
+        return result;
+    }
+
+    /**
+     * Returns the number of words being monitored.
+     *
+     * @return the number of counters in use
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Finds the counter of txt.
+     */
+    private int find(String txt)
+    {
+        int hash = WordCounter.hash(txt);
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0)
+        {
+            int c = entry - 1;
+            if (hashes[c] == hash && words[c].equals(txt))
+                return c;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes counter c from the hash table, moving later entries of its
+     * probe run back so no lookup is cut short.
+     */
+    private void remove(int c)
+    {
+        int hole = hashes[c] & mask;
+        while (table[hole] != c + 1)
+            hole = (hole + 1) & mask;
+        int next = hole;
+        while (true)
+        {
+            next = (next + 1) & mask;
+            int entry = table[next];
+            if (entry == 0)
+                break;
+            int home = hashes[entry - 1] & mask;
+            // the entry may move into the hole unless its home lies
+            // cyclically after the hole and at or before its slot
+            boolean stays = hole <= next ? hole < home && home <= next
+                                         : hole < home || home <= next;
+            if (!stays)
+            {
+                table[hole] = entry;
+                hole = next;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    /**
+     * Moves the counter at heap position i up while its count is smaller
+     * than its parent's.
+     */
+    private void siftUp(int i)
+    {
+        int c = heap[i];
+        while (i > 0)
+        {
+            int parent = (i - 1) / 2;
+            if (counts[heap[parent]] <= counts[c])
+                break;
+            heap[i] = heap[parent];
+            heapIndex[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = c;
+        heapIndex[c] = i;
+    }
+
+    /**
+     * Moves the counter at heap position i down while a child has a
+     * smaller count.
+     */
+    private void siftDown(int i)
+    {
+        int c = heap[i];
+        while (2 * i + 1 < size)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]])
+                child++;
+            if (counts[c] <= counts[heap[child]])
+                break;
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = c;
+        heapIndex[c] = i;
+    }
+
+    /**
+     * Returns whether txt has exactly the characters in buf[off .. off+len-1].
+     */
+    private static boolean matches(String txt, byte[] buf, int off, int len)
+    {
+        if (txt.length() != len)
+            return false;
+        for (int i = 0; i < len; i++)
+        {
+            if (txt.charAt(i) != (char) (buf[off + i] & 0xff))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * A vector with one weight per word of a corpus, most of which are zero.
+ * Only the words with a weight are kept: their ids in increasing order,
+ * and their weights in a parallel array.  Two vectors are multiplied by
+ * walking both id arrays at once, as in the merge step of merge sort, so
+ * a dot product takes time in proportion to the words of the two books
+ * rather than to the words of the whole corpus.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class SparseVector
+{
+    private final int[] ids;         // increasing word ids
+    private final float[] weights;   // weights[i] is the weight of ids[i]
+    private final double norm;       // the length of the vector
+
+    /**
+     * Constructor for a vector from its ids and weights.  The arrays are
+     * kept, not copied.
+     *
+     * @param ids      the word ids, in increasing order
+     * @param weights  the weight of each id
+     */
+    public SparseVector(int[] ids, float[] weights)
+    {
+        if (ids.length != weights.length)
+            throw new IllegalArgumentException("ids and weights differ in length");
+        for (int i = 1; i < ids.length; i++)
+        {
+            if (ids[i - 1] >= ids[i])
+                throw new IllegalArgumentException("ids must be increasing");
+        }
+        this.ids = ids;
+        this.weights = weights;
+        double sum = 0;
+        for (float w : weights)
+            sum += (double) w * w;
+        norm = Math.sqrt(sum);
+    }
+
+    /**
+     * Returns the number of words with a weight.
+     *
+     * @return the number of ids kept
+     */
+    public int size()
+    {
+        return ids.length;
+    }
+
+    /**
+     * Returns the id of the i-th word with a weight.
+     *
+     * @param i  the position, from 0
+     * @return   its word id
+     */
+    public int idAt(int i)
+    {
+        return ids[i];
+    }
+
+    /**
+     * Returns the weight of the i-th word with a weight.
+     *
+     * @param i  the position, from 0
+     * @return   its weight
+     */
+    public float weightAt(int i)
+    {
+        return weights[i];
+    }
+
+    /**
+     * Returns the weight of a word.
+     *
+     * @param id  the word id
+     * @return    its weight, or 0 if it has none
+     */
+    public float get(int id)
+    {
+        int i = java.util.Arrays.binarySearch(ids, id);
+        return i < 0 ? 0 : weights[i];
+    }
+
+    /**
+     * Returns the length of the vector.
+     *
+     * @return the square root of the sum of the squared weights
+     */
+    public double norm()
+    {
+        return norm;
+    }
+
+    /**
+     * Multiplies this vector by another, merging their sorted ids.
+     *
+     * @param other  the other vector
+     * @return       the sum of the products of the weights of the ids
+     *               that both have
+     */
+    public double dot(SparseVector other)
+    {
+        int[] a = ids;
+        int[] b = other.ids;
+        double sum = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length)
+        {
+            if (a[i] < b[j])
+                i++;
+            else if (a[i] > b[j])
+                j++;
+            else
+            {
+                sum += (double) weights[i] * other.weights[j];
+                i++;
+                j++;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the cosine of the angle between this vector and another:
+     * 1 when they point the same way, 0 when they share no word.
+     *
+     * @param other  the other vector
+     * @return       the cosine similarity, or 0 if either vector is zero
+     */
+    public double cosine(SparseVector other)
+    {
+        if (norm == 0 || other.norm == 0)
+            return 0;
+        return dot(other) / (norm * other.norm);
+    }
+}
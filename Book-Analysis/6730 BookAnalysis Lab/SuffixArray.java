@@ -0,0 +1,444 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A suffix array over the words of a book, for counting and finding any
+ * phrase without counting every n-gram in advance.  The book is taken as
+ * a TokenStream of word ids; the suffix array lists every position of the
+ * book so that the words from each position onward are in sorted order
+ * (by word id), and the LCP array gives how many words each suffix shares
+ * with the one before it.
+ *
+ * The suffix array is built in linear time by SA-IS (induced sorting),
+ * and the LCP array by Kasai's algorithm.  A phrase of m words is found by
+ * binary search, in O(m log n) time for a book of n words.  Together with
+ * the ids the arrays take 12 bytes per word of the book.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class SuffixArray
+{
+    private final TokenStream stream;
+    // the word ids of the book plus one, ending with 0; the empty suffix
+    // at the end is suffixes[0] and is never a match
+    private final int[] text;
+    private final int[] suffixes; // the positions of the book in suffix order
+    private final int[] lcp;      // lcp[i] = words shared by suffixes i-1 and i
+    private final long buildNanos;
+
+    /**
+     * Constructor for the suffix array of a token stream.
+     *
+     * @param stream  the words of the book as ids
+     */
+    public SuffixArray(TokenStream stream)
+    {
+        long start = System.nanoTime();
+        this.stream = stream;
+        int n = stream.size();
+        text = new int[n + 1];
+        for (int p = 0; p < n; p++)
+            text[p] = stream.idAt(p) + 1;
+        suffixes = new int[n + 1];
+        sais(text, suffixes, n + 1, stream.getDictionary().size() + 1);
+        lcp = kasai(text, suffixes);
+        buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Reads a file and builds the suffix array of its words.
+     *
+     * @param fileName   the pathname of the file
+     * @return           the suffix array
+     * @throws IOException file is not found
+     */
+    public static SuffixArray build(String fileName) throws IOException
+    {
+        return new SuffixArray(TokenStream.build(fileName));
+    }
+
+    /**
+     * Counts how many times a phrase appears.
+     *
+     * @param phrase  words separated by spaces, such as "white whale";
+     *                case and punctuation are ignored
+     * @return        the number of places the phrase appears
+     */
+    public int countPhrase(String phrase)
+    {
+        int[] ids = idsOf(phrase);
+        if (ids == null)
+            return 0;
+        return upperBound(ids) - lowerBound(ids);
+    }
+
+    /**
+     * Finds every place a phrase appears.
+     *
+     * @param phrase  words separated by spaces, such as "call me";
+     *                case and punctuation are ignored
+     * @return        the positions of the first word of each appearance,
+     *                counted in words from the start of the book, in
+     *                increasing order; empty if it does not appear
+     */
+    public int[] locatePhrase(String phrase)
+    {
+        int[] ids = idsOf(phrase);
+        if (ids == null)
+            return new int[0];
+        int[] found = Arrays.copyOfRange(suffixes, lowerBound(ids), upperBound(ids));
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Finds the longest phrase that appears more than once.
+     *
+     * @return the phrase, or an empty String if no word repeats
+     */
+    public String longestRepeatedPhrase()
+    {
+        int best = 0;
+        for (int i = 1; i < lcp.length; i++)
+        {
+            if (lcp[i] > lcp[best])
+                best = i;
+        }
+        if (lcp[best] == 0)
+            return "";
+        StringBuilder phrase = new StringBuilder();
+        for (int k = 0; k < lcp[best]; k++)
+        {
+            if (k > 0)
+                phrase.append(' ');
+            phrase.append(stream.wordAt(suffixes[best] + k));
+        }
+        return phrase.toString();
+    }
+
+    /**
+     * Returns the number of words in the book.
+     *
+     * @return the length of the suffix array
+     */
+    public int size()
+    {
+        return suffixes.length - 1;
+    }
+
+    /**
+     * Returns how long building the arrays took.
+     *
+     * @return the build time in nanoseconds
+     */
+    public long getBuildNanos()
+    {
+        return buildNanos;
+    }
+
+    /**
+     * Returns the memory the arrays take.
+     *
+     * @return bytes used by the ids, the suffix array and the LCP array
+     */
+    public long getBytes()
+    {
+        return 4L * (text.length + suffixes.length + lcp.length);
+    }
+
+    /**
+     * Returns the ids of the words of a phrase plus one, as they are in
+     * text, or null if one of them is not in the book.  The words of the
+     * phrase are split at whitespace and cleaned up like the book's by
+     * ByteTokenizer.cleanUp, so case and punctuation are ignored; words
+     * that clean up to nothing are dropped.
+     */
+    private int[] idsOf(String phrase)
+    {
+        int[] ids = new int[phrase.length()];
+        int count = 0;
+        int i = 0;
+        while (i < phrase.length())
+        {
+            int j = i;
+            while (j < phrase.length() && !Character.isWhitespace(phrase.charAt(j)))
+                j++;
+            String word = ByteTokenizer.cleanUp(phrase.substring(i, j));
+            i = j + 1;
+            if (word.isEmpty())
+                continue;
+            int id = stream.getDictionary().indexOf(word);
+            if (id < 0)
+                return null;
+            ids[count++] = id + 1;
+        }
+        if (count == 0)
+            return null;
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Compares the suffix at position p with the words in ids, looking
+     * only at the first ids.length words of the suffix.  The 0 at the end
+     * of text stops the comparison before it runs off the end.
+     */
+    private int compare(int p, int[] ids)
+    {
+        for (int k = 0; k < ids.length; k++)
+        {
+            if (text[p + k] != ids[k])
+                return text[p + k] < ids[k] ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the index of the first suffix that does not come before ids.
+     */
+    private int lowerBound(int[] ids)
+    {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (compare(suffixes[mid], ids) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the first suffix that comes after ids.
+     */
+    private int upperBound(int[] ids)
+    {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (compare(suffixes[mid], ids) <= 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Builds the suffix array of s[0 .. n-1] by SA-IS.  s[n-1] must be 0,
+     * and every other value must be in 1 .. k-1.
+     */
+    private static void sais(int[] s, int[] sa, int n, int k)
+    {
+        if (n == 1)
+        {
+            // only the 0 that ends the text, which is not an LMS suffix
+            sa[0] = 0;
+            return;
+        }
+        // type[i] is true for an S-type suffix: smaller than the next one
+        boolean[] type = new boolean[n];
+        type[n - 1] = true;
+        for (int i = n - 2; i >= 0; i--)
+            type[i] = s[i] < s[i + 1] || (s[i] == s[i + 1] && type[i + 1]);
+
+        // sort the LMS substrings by placing them and inducing the rest
+        int[] bucket = new int[k];
+        bucketEnds(s, n, bucket);
+        Arrays.fill(sa, 0, n, -1);
+        for (int i = 1; i < n; i++)
+        {
+            if (isLms(type, i))
+                sa[--bucket[s[i]]] = i;
+        }
+        induce(s, sa, n, type, bucket);
+
+        // name the LMS substrings by their sorted order
+        int count = 0;
+        for (int i = 0; i < n; i++)
+        {
+            if (isLms(type, sa[i]))
+                sa[count++] = sa[i];
+        }
+        Arrays.fill(sa, count, n, -1);
+        int name = 0;
+        int previous = -1;
+        for (int i = 0; i < count; i++)
+        {
+            int p = sa[i];
+            boolean different = false;
+            for (int d = 0; d < n; d++)
+            {
+                if (previous < 0 || s[p + d] != s[previous + d] || type[p + d] != type[previous + d])
+                {
+                    different = true;
+                    break;
+                }
+                if (d > 0 && (isLms(type, p + d) || isLms(type, previous + d)))
+                    break;
+            }
+            if (different)
+            {
+                name++;
+                previous = p;
+            }
+            sa[count + p / 2] = name - 1;
+        }
+        int[] reduced = new int[count];
+        for (int i = n - 1, j = count - 1; i >= count; i--)
+        {
+            if (sa[i] >= 0)
+                reduced[j--] = sa[i];
+        }
+
+        // sort the reduced string, recursing if names repeat
+        int[] reducedSa = new int[count];
+        if (name < count)
+            sais(reduced, reducedSa, count, name);
+        else
+        {
+            for (int i = 0; i < count; i++)
+                reducedSa[reduced[i]] = i;
+        }
+
+        // place the LMS suffixes in sorted order and induce the rest
+        for (int i = 1, j = 0; i < n; i++)
+        {
+            if (isLms(type, i))
+                reduced[j++] = i;
+        }
+        bucketEnds(s, n, bucket);
+        Arrays.fill(sa, 0, n, -1);
+        for (int i = count - 1; i >= 0; i--)
+        {
+            int p = reduced[reducedSa[i]];
+            sa[--bucket[s[p]]] = p;
+        }
+        induce(s, sa, n, type, bucket);
+    }
+
+    /**
+     * Induces the L-type suffixes from the left and then the S-type
+     * suffixes from the right.
+     */
+    private static void induce(int[] s, int[] sa, int n, boolean[] type, int[] bucket)
+    {
+        bucketStarts(s, n, bucket);
+        for (int i = 0; i < n; i++)
+        {
+            int j = sa[i] - 1;
+            if (j >= 0 && !type[j])
+                sa[bucket[s[j]]++] = j;
+        }
+        bucketEnds(s, n, bucket);
+        for (int i = n - 1; i >= 0; i--)
+        {
+            int j = sa[i] - 1;
+            if (j >= 0 && type[j])
+                sa[--bucket[s[j]]] = j;
+        }
+    }
+
+    /**
+     * Sets bucket[c] to the index of the first suffix starting with c.
+     */
+    private static void bucketStarts(int[] s, int n, int[] bucket)
+    {
+        Arrays.fill(bucket, 0);
+        for (int i = 0; i < n; i++)
+            bucket[s[i]]++;
+        int sum = 0;
+        for (int c = 0; c < bucket.length; c++)
+        {
+            int size = bucket[c];
+            bucket[c] = sum;
+            sum += size;
+        }
+    }
+
+    /**
+     * Sets bucket[c] to one past the index of the last suffix starting
+     * with c.
+     */
+    private static void bucketEnds(int[] s, int n, int[] bucket)
+    {
+        Arrays.fill(bucket, 0);
+        for (int i = 0; i < n; i++)
+            bucket[s[i]]++;
+        int sum = 0;
+        for (int c = 0; c < bucket.length; c++)
+        {
+            sum += bucket[c];
+            bucket[c] = sum;
+        }
+    }
+
+    /**
+     * Returns whether position i starts a leftmost S-type suffix.
+     */
+    private static boolean isLms(boolean[] type, int i)
+    {
+        return i > 0 && type[i] && !type[i - 1];
+    }
+
+    /**
+     * Builds the LCP array of a suffix array by Kasai's algorithm.  The 0
+     * that ends text matches nothing, so no suffix runs off the end.
+     */
+    private static int[] kasai(int[] text, int[] suffixes)
+    {
+        int n = suffixes.length;
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++)
+            rank[suffixes[i]] = i;
+        int[] lcp = new int[n];
+        int h = 0;
+        for (int p = 0; p < n; p++)
+        {
+            if (rank[p] > 0)
+            {
+                int q = suffixes[rank[p] - 1];
+                while (text[p + h] != 0 && text[p + h] == text[q + h])
+                    h++;
+                lcp[rank[p]] = h;
+                if (h > 0)
+                    h--;
+            }
+            else
+            {
+                h = 0;
+            }
+        }
+        return lcp;
+    }
+
+    /**
+     * Reports how long building the suffix array of each file takes and
+     * how much memory it uses.
+     *
+     * @param  args  the pathnames of the files (MobyDick.txt by default)
+     * @throws IOException  if a file cannot be found
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length == 0)
+            args = new String[] { "MobyDick.txt" };
+        System.out.printf("%-30s %12s %12s %10s %12s\n", "File", "Words", "Tokenize ms",
+                          "Build ms", "Index MB");
+        for (String fileName : args)
+        {
+            long start = System.nanoTime();
+            TokenStream stream = TokenStream.build(fileName);
+            double tokenize = (System.nanoTime() - start) / 1e6;
+            SuffixArray index = new SuffixArray(stream);
+            System.out.printf("%-30s %12d %12.1f %10.1f %12.1f\n", fileName, index.size(),
+                              tokenize, index.getBuildNanos() / 1e6, index.getBytes() / 1048576.0);
+            System.out.println("  longest repeated phrase: " + index.longestRepeatedPhrase());
+        }
+    }
+}
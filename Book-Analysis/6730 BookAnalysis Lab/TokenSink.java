@@ -0,0 +1,41 @@
+/**
+ * Receives the words found by a ByteTokenizer.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public interface TokenSink
+{
+    /**
+     * Called once for every cleaned-up word.  The bytes are lower case
+     * ASCII and are only valid until this method returns, so they must
+     * be copied if they are kept.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the first character of
+     *                  the word
+     */
+    void token(byte[] buf, int off, int len, long position);
+
+    /**
+     * Called once for every cleaned-up word, with how many bytes of the
+     * file the word was cleaned up from, counting from its first letter to
+     * its last; punctuation inside the word, such as the "--" of
+     * "together--there", makes this longer than len.  Sinks that do not
+     * need it get the four-argument call.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the first character of
+     *                  the word
+     * @param span      the number of bytes of the file from the first
+     *                  character of the word to its last
+     */
+    default void token(byte[] buf, int off, int len, long position, int span)
+    {
+        token(buf, off, len, position);
+    }
+}
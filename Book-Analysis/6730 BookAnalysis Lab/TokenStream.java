@@ -0,0 +1,306 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A text stored as a stream of word ids.  Every distinct word gets a
+ * dense int id from a WordCounter, and the text is kept as the int id of
+ * each of its words in order, 4 bytes per word instead of a String.  This
+ * makes positions, distances and co-occurrence windows cheap to compute.
+ *
+ * A stream can be saved to a file and mapped back into memory, so many
+ * books can be open at once without loading their streams onto the heap.
+ * The file holds a header ("WTOK", the format version, the number of
+ * words and the number of distinct words), the ids as little-endian ints,
+ * and then each distinct word in id order with its count.  A saved
+ * stream is mapped in one piece, so it must be smaller than 2 GB (about
+ * 500 million words).
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class TokenStream implements TokenSink
+{
+    private static final int MAGIC = 0x57544f4b;   // "WTOK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final WordCounter dictionary;
+    private int[] ids;          // the ids when the stream is on the heap
+    private IntBuffer mapped;   // the ids when the stream is mapped from a file
+    private int size;
+
+    /**
+     * Constructor for an empty TokenStream that words can be added to.
+     */
+    public TokenStream()
+    {
+        dictionary = new WordCounter();
+        ids = new int[1024];
+    }
+
+    /**
+     * Constructor for a TokenStream over ids that have already been made.
+     */
+    private TokenStream(WordCounter dictionary, IntBuffer mapped, int size)
+    {
+        this.dictionary = dictionary;
+        this.mapped = mapped;
+        this.size = size;
+    }
+
+    /**
+     * Reads a file into a token stream.
+     *
+     * @param fileName   the pathname of the file
+     * @return           the stream of the words in the file
+     * @throws IOException file is not found
+     */
+    public static TokenStream build(String fileName) throws IOException
+    {
+        TokenStream stream = new TokenStream();
+        new ByteTokenizer().tokenize(fileName, stream);
+        return stream;
+    }
+
+    /**
+     * Adds the next word of the text to the end of the stream.
+     *
+     * @param buf       the bytes holding the word
+     * @param off       the position of the first byte of the word in buf
+     * @param len       the number of bytes in the word
+     * @param position  the offset in the file of the word
+     */
+    public void token(byte[] buf, int off, int len, long position)
+    {
+        if (mapped != null)
+            throw new IllegalStateException("a mapped stream cannot be changed");
+        int id = dictionary.add(buf, off, len);
+        if (size == ids.length)
+            ids = Arrays.copyOf(ids, size * 2);
+        ids[size++] = id;
+    }
+
+    /**
+     * Returns the number of words in the stream.
+     *
+     * @return the number of words, repetitions included
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the id of the word at a position of the text.
+     *
+     * @param position  the position of the word; the first word is 0
+     * @return          the id of the word in getDictionary()
+     */
+    public int idAt(int position)
+    {
+        return mapped != null ? mapped.get(position) : ids[position];
+    }
+
+    /**
+     * Returns the word at a position of the text.
+     *
+     * @param position  the position of the word; the first word is 0
+     * @return          the text of the word
+     */
+    public String wordAt(int position)
+    {
+        return dictionary.wordAt(idAt(position));
+    }
+
+    /**
+     * Returns the dictionary that maps ids to words, with the count of
+     * every word.
+     *
+     * @return the dictionary of the stream
+     */
+    public WordCounter getDictionary()
+    {
+        return dictionary;
+    }
+
+    /**
+     * Finds every position at which a word appears.
+     *
+     * @param txt  the word to be found
+     * @return     its positions in increasing order; empty if it does not
+     *             appear
+     */
+    public int[] positionsOf(String txt)
+    {
+        int id = dictionary.indexOf(txt);
+        if (id < 0)
+            return new int[0];
+        int[] positions = new int[dictionary.countAt(id)];
+        int found = 0;
+        for (int p = 0; p < size && found < positions.length; p++)
+        {
+            if (idAt(p) == id)
+                positions[found++] = p;
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the smallest number of words between an appearance of first
+     * and an appearance of second.
+     *
+     * @param first   one word
+     * @param second  another word
+     * @return        the smallest distance in words, or -1 if either word
+     *                does not appear
+     */
+    public int distance(String first, String second)
+    {
+        int a = dictionary.indexOf(first);
+        int b = dictionary.indexOf(second);
+        if (a < 0 || b < 0)
+            return -1;
+        int best = -1;
+        int lastA = -1;   // the last position of a
+        int lastB = -1;   // the last position of b, or of a if a == b
+        for (int p = 0; p < size; p++)
+        {
+            int id = idAt(p);
+            if (id != a && id != b)
+                continue;
+            int other = id == a ? lastB : lastA;
+            if (a == b)
+                other = lastA;
+            if (other >= 0 && (best < 0 || p - other < best))
+                best = p - other;
+            if (id == a)
+                lastA = p;
+            if (id == b)
+                lastB = p;
+        }
+        return best;
+    }
+
+    /**
+     * Counts the words that appear within window words of txt, on either
+     * side.  Each appearance of txt counts its neighbors once.
+     *
+     * @param txt     the word whose neighbors are counted
+     * @param window  how many words on each side are neighbors
+     * @return        the neighbors and how often they were near txt
+     */
+    public WordCounter coOccurrences(String txt, int window)
+    {
+        WordCounter near = new WordCounter();
+        int id = dictionary.indexOf(txt);
+        if (id < 0)
+            return near;
+        for (int p = 0; p < size; p++)
+        {
+            if (idAt(p) != id)
+                continue;
+            int from = Math.max(0, p - window);
+            int to = Math.min(size - 1, p + window);
+            for (int q = from; q <= to; q++)
+            {
+                if (q != p)
+                    near.add(wordAt(q));
+            }
+        }
+        return near;
+    }
+
+    /**
+     * Writes the stream to a file that map can read back.
+     *
+     * @param fileName   the pathname of the file to write
+     * @throws IOException the file cannot be written
+     */
+    public void save(String fileName) throws IOException
+    {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+             FileChannel channel = file.getChannel())
+        {
+            channel.truncate(0);
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(dictionary.size());
+            for (int p = 0; p < size; p++)
+            {
+                if (buf.remaining() < 4)
+                    flush(channel, buf);
+                buf.putInt(idAt(p));
+            }
+            for (int id = 0; id < dictionary.size(); id++)
+            {
+                String word = dictionary.wordAt(id);
+                if (buf.remaining() < 8 + word.length())
+                    flush(channel, buf);
+                if (buf.remaining() < 8 + word.length())
+                    buf = ByteBuffer.allocate(8 + word.length()).order(ByteOrder.LITTLE_ENDIAN);
+                buf.putInt(dictionary.countAt(id)).putInt(word.length());
+                for (int c = 0; c < word.length(); c++)
+                    buf.put((byte) word.charAt(c));
+            }
+            flush(channel, buf);
+        }
+    }
+
+    /**
+     * Maps a stream saved by save.  The ids stay in the file and are read
+     * through the map; only the dictionary is loaded onto the heap.
+     *
+     * @param fileName   the pathname of the saved stream
+     * @return           the stream
+     * @throws IOException the file cannot be read or is not a saved stream
+     */
+    public static TokenStream map(String fileName) throws IOException
+    {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+             FileChannel channel = file.getChannel())
+        {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_SIZE || map.getInt() != MAGIC || map.getInt() != VERSION)
+                throw new IOException(fileName + " is not a saved token stream");
+            int size = map.getInt();
+            int distinct = map.getInt();
+
+            map.position(HEADER_SIZE);
+            ByteBuffer idBytes = map.slice().order(ByteOrder.LITTLE_ENDIAN);
+            idBytes.limit(size * 4);
+            IntBuffer ids = idBytes.asIntBuffer();
+
+            map.position(HEADER_SIZE + size * 4);
+            WordCounter dictionary = new WordCounter(distinct);
+            byte[] word = new byte[64];
+            for (int id = 0; id < distinct; id++)
+            {
+                int count = map.getInt();
+                int length = map.getInt();
+                if (length > word.length)
+                    word = new byte[length];
+                map.get(word, 0, length);
+                dictionary.add(new String(word, 0, length,
+                                          java.nio.charset.StandardCharsets.ISO_8859_1), count);
+            }
+            return new TokenStream(dictionary, ids, size);
+        }
+    }
+
+    /**
+     * Writes the contents of buf to channel and empties it.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buf) throws IOException
+    {
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        buf.clear();
+    }
+}
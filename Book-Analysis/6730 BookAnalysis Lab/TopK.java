@@ -0,0 +1,101 @@
+/**
+ * Picks the k best of n items without sorting all of them, using a
+ * min-heap that holds the best k items seen so far.  This takes
+ * O(n log k) time.  Items are numbered 0 .. n-1 and ranked by a Ranking.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class TopK
+{
+    /**
+     * Decides which of two items is better.
+     */
+    public interface Ranking
+    {
+        /**
+         * Returns whether item a comes before item b.
+         *
+         * @param a  the number of one item
+         * @param b  the number of another item
+         * @return   true if a ranks ahead of b; otherwise, false
+         */
+        boolean ranksBefore(int a, int b);
+    }
+
+    /**
+     * Returns the k best of the items 0 .. n-1.
+     *
+     * @param n        the number of items
+     * @param k        the number of items wanted
+     * @param ranking  decides which items are better
+     * @return         the numbers of the best min(k, n) items, best first
+     */
+    public static int[] select(int n, int k, Ranking ranking)
+    {
+        k = Math.max(0, Math.min(k, n));
+        int[] heap = new int[k];   // heap[0] is the worst of the best k
+        int size = 0;
+        for (int item = 0; item < n && k > 0; item++)
+        {
+            if (size < k)
+            {
+                heap[size] = item;
+                siftUp(heap, size, ranking);
+                size++;
+            }
+            else if (ranking.ranksBefore(item, heap[0]))
+            {
+                heap[0] = item;
+                siftDown(heap, size, ranking);
+            }
+        }
+        int[] best = new int[size];
+        for (int i = size - 1; i >= 0; i--)
+        {
+            best[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i, ranking);
+        }
+        return best;
+    }
+
+    /**
+     * Moves heap[i] up until its parent ranks before it.
+     */
+    private static void siftUp(int[] heap, int i, Ranking ranking)
+    {
+        int item = heap[i];
+        while (i > 0)
+        {
+            int parent = (i - 1) / 2;
+            if (!ranking.ranksBefore(heap[parent], item))
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    /**
+     * Moves heap[0] down until both of its children rank before it.
+     */
+    private static void siftDown(int[] heap, int size, Ranking ranking)
+    {
+        if (size == 0)
+            return;
+        int i = 0;
+        int item = heap[0];
+        while (2 * i + 1 < size)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < size && ranking.ranksBefore(heap[child], heap[child + 1]))
+                child++;
+            if (!ranking.ranksBefore(item, heap[child]))
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+}
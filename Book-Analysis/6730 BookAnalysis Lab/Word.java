@@ -28,6 +28,18 @@ public class Word implements Comparable
         frequency = 1;
     }
 
+    /**
+     * Constructor for objects of class Word whose frequency is already known.
+     *
+     * @param text      the string of characters of the word
+     * @param frequency how often the word appears in a text file
+     */
+    public Word(String text, int frequency)
+    {
+        word = text;
+        this.frequency = frequency;
+    }
+
     /**
      * The "word" has already appeared in the file, so 1 is 
      * added to frequence since it as appeared again.
@@ -1,7 +1,9 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
 import java.io.IOException;
 import java.io.File;
+import java.io.UncheckedIOException;
 
 /**
  * Reads in a text file and analyzes the frequency of the
@@ -21,7 +23,39 @@ import java.io.File;
 public class WordAnalysis
 {
     // instance variables 
-    private ArrayList <Word> words;
+    private WordCounter counts;
+    private IngestMetrics metrics = new IngestMetrics( );
+    private String source;             // the pathname of the book, if known
+    private TokenStream tokens;        // only kept by IngestMode.ENCODED
+    private ConcordanceIndex places;   // built by IngestMode.CONCORDANCE or when first needed
+    private ApproximateCounter approximate;   // only kept by IngestMode.APPROXIMATE
+    private WordTable table;           // only kept by IngestMode.EXTERNAL
+    private OffHeapVocabulary offHeap; // only kept by IngestMode.OFF_HEAP
+    private ChapterAnalysis chapters;  // built when first needed
+    private SuffixArray phrases;       // built when first needed
+    private CorpusAnalysis corpus;     // only kept for a corpus of books
+    private FileFollower follower;     // only kept for a file that keeps growing
+    private long followedLookups;      // counts.getLookups() when metrics last saw it
+    private long followedProbes;       // counts.getProbes() when metrics last saw it
+    private ArrayList <Word> words = new ArrayList<Word>( );   // the current organization
+    private long[] totals;                 // totals[i] = sum of the first i frequencies in words
+    private boolean lexicographic = true;  // whether words is the lexicographic view
+
+    // views of the counts, built when first needed and kept until the
+    // counts change
+    private ArrayList <Word> byWord;       // lexicographic order
+    private ArrayList <Word> byFrequency;  // most frequent first
+    private long[] byWordTotals;           // prefix sums of the frequencies in each view
+    private long[] byFrequencyTotals;
+    private WordTrie dictionary;
+    private int viewVersion;               // the version of counts the views show
+
+    // views of the words kept by offHeap, as arrays of their ids, built
+    // when first needed; offHeap does not change once it is counted
+    private int[] ids;                     // the current organization
+    private int[] idsByWord;               // lexicographic order
+    private int[] idsByFrequency;          // most frequent first
+    private int[] wordRank;                // wordRank[id] = position of id in idsByWord
 
     /**
      * Creates a list of words from a file and frequency of use
@@ -31,14 +65,298 @@ public class WordAnalysis
      */
     public WordAnalysis(String fileName) throws IOException
     {
-        words = new ArrayList<Word>( );
-        readFile(fileName);
+        this(fileName, IngestMode.SCANNER);
+    }
+
+    /**
+     * Creates a list of words from a file and frequency of use, reading
+     * the file the way mode says.
+     * 
+     * @param  fileName    the name of the text of the book
+     * @param  mode        how the file is read
+     * @throws IOException file is not found
+     */
+    public WordAnalysis(String fileName, IngestMode mode) throws IOException
+    {
+        this(fileName, mode, Runtime.getRuntime( ).availableProcessors( ));
+    }
+
+    /**
+     * Creates a list of words from a file and frequency of use, reading
+     * the file the way mode says.
+     * 
+     * @param  fileName    the name of the text of the book
+     * @param  mode        how the file is read
+     * @param  threads     the number of threads used by IngestMode.PARALLEL
+     * @throws IOException file is not found
+     */
+    public WordAnalysis(String fileName, IngestMode mode, int threads) throws IOException
+    {
+        long start = System.nanoTime( );
+        source = fileName;
+        if (mode == IngestMode.PARALLEL)
+        {
+            counts = ParallelIngest.count(fileName, threads);
+        }
+        else if (mode == IngestMode.ENCODED)
+        {
+            tokens = TokenStream.build(fileName);
+            counts = tokens.getDictionary( );
+        }
+        else if (mode == IngestMode.CONCORDANCE)
+        {
+            places = ConcordanceIndex.build(fileName);
+            counts = places.getDictionary( );
+        }
+        else if (mode == IngestMode.APPROXIMATE)
+        {
+            approximate = ApproximateCounter.count(fileName, ApproximateCounter.DEFAULT_BUDGET);
+            counts = approximate.toWordCounter( );
+        }
+        else if (mode == IngestMode.EXTERNAL)
+        {
+            ExternalCounter external = ExternalCounter.count(fileName, ExternalCounter.DEFAULT_BUDGET);
+            table = WordTable.open(WordTable.tableNameFor(fileName));
+            counts = external.getTopWords( );
+        }
+        else if (mode == IngestMode.OFF_HEAP)
+        {
+            // the counts stay empty; the views are sorted arrays of offHeap ids
+            offHeap = OffHeapVocabulary.count(fileName);
+            counts = new WordCounter( );
+        }
+        else if (mode == IngestMode.INCREMENTAL)
+        {
+            counts = IncrementalIndex.open(fileName).getCounts( );
+        }
+        else
+        {
+            counts = new WordCounter( );
+            if (mode == IngestMode.MAPPED)
+                readMappedFile(fileName);
+            else
+                readFile(fileName);
+        }
+        if (offHeap != null)
+            metrics.ingested(fileName, mode.name( ), new File(fileName).length( ),
+                             offHeap.getTotal( ), offHeap.size( ), 0, 0, System.nanoTime( ) - start);
+        else
+            metrics.ingested(fileName, mode.name( ), new File(fileName).length( ), counts,
+                             System.nanoTime( ) - start);
+    }
+
+    /**
+     * Creates a WordAnalysis from counts that have already been made.
+     * 
+     * @param counts  the counts of the words in the book
+     */
+    WordAnalysis(WordCounter counts)
+    {
+        this.counts = counts;
+    }
+
+    /**
+     * Analyzes a book, using the index saved next to it if the index is
+     * up to date.  Otherwise the book is read and a new index is saved so
+     * the next analysis of the same book starts quickly.
+     * 
+     * @param  fileName    the name of the text of the book
+     * @return the analysis of the book
+     * @throws IOException file is not found
+     */
+    public static WordAnalysis open(String fileName) throws IOException
+    {
+        String indexName = WordIndex.indexNameFor(fileName);
+        WordCounter saved = WordIndex.load(fileName, indexName);
+        if (saved != null)
+        {
+            WordAnalysis book = new WordAnalysis(saved);
+            book.source = fileName;
+            return book;
+        }
+        WordAnalysis book = new WordAnalysis(fileName, IngestMode.PARALLEL);
+        try
+        {
+            WordIndex.save(book.counts, fileName, indexName);
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not save the index " + indexName + ": " + e.getMessage());
+        }
+        return book;
+    }
+
+    /**
+     * Analyzes a book approximately, for books with too many different
+     * words to count exactly.  The frequency of any word is estimated by a
+     * Count-Min Sketch and the most frequent words are kept by a
+     * Space-Saving summary, both within memoryBudget bytes.  The words
+     * list holds only the words kept, with their estimated frequencies;
+     * printTopWords and findWord report how far off the estimates can be.
+     * 
+     * @param  fileName      the name of the text of the book
+     * @param  memoryBudget  about how many bytes the counts may use
+     * @return the approximate analysis of the book
+     * @throws IOException file is not found
+     */
+    public static WordAnalysis approximate(String fileName, long memoryBudget) throws IOException
+    {
+        long start = System.nanoTime( );
+        ApproximateCounter approximate = ApproximateCounter.count(fileName, memoryBudget);
+        WordAnalysis analysis = new WordAnalysis(approximate.toWordCounter( ));
+        analysis.approximate = approximate;
+        analysis.source = fileName;
+        analysis.metrics.ingested(fileName, IngestMode.APPROXIMATE.name( ),
+                                  new File(fileName).length( ), analysis.counts,
+                                  System.nanoTime( ) - start);
+        return analysis;
+    }
+
+    /**
+     * Analyzes a book whose different words do not fit in memory, counting
+     * them exactly.  Words are counted in memory until about memoryBudget
+     * bytes are used, then spilled to disk as a sorted run; the runs are
+     * merged into a WordTable saved next to the book.  The lexicographic
+     * list, findWord and the prefix searches read that table; the list by
+     * frequency holds only the most frequent words, with their exact
+     * frequencies.
+     * 
+     * @param  fileName      the name of the text of the book
+     * @param  memoryBudget  about how many bytes the counts in memory may use
+     * @return the analysis of the book
+     * @throws IOException file is not found, or the table cannot be written
+     */
+    public static WordAnalysis external(String fileName, long memoryBudget) throws IOException
+    {
+        long start = System.nanoTime( );
+        ExternalCounter external = ExternalCounter.count(fileName, memoryBudget);
+        WordAnalysis analysis = new WordAnalysis(external.getTopWords( ));
+        analysis.table = WordTable.open(WordTable.tableNameFor(fileName));
+        analysis.source = fileName;
+        analysis.metrics.ingested(fileName, IngestMode.EXTERNAL.name( ),
+                                  new File(fileName).length( ), analysis.counts,
+                                  System.nanoTime( ) - start);
+        return analysis;
+    }
+
+    /**
+     * Analyzes every .txt book in a directory together.  The books are read
+     * concurrently, each into counts of its own, and the words list holds
+     * the counts of the whole corpus; corpus() gives the counts of each
+     * book.
+     * 
+     * @param  directory   the pathname of the directory of books
+     * @return the analysis of the corpus
+     * @throws IOException the directory or one of its books cannot be read
+     */
+    public static WordAnalysis ofCorpus(String directory) throws IOException
+    {
+        CorpusAnalysis corpus = CorpusAnalysis.build(directory);
+        WordAnalysis analysis = new WordAnalysis(corpus.getTotals( ));
+        analysis.corpus = corpus;
+        long bytes = 0;
+        for (int i = 0; i < corpus.size( ); i++)
+            bytes += new File(directory, corpus.getName(i)).length( );
+        analysis.metrics.ingested(directory, "CORPUS", bytes, analysis.counts,
+                                  corpus.getWallNanos( ));
+        return analysis;
+    }
+
+    /**
+     * Analyzes a file that keeps growing, such as a log.  The words in the
+     * file now are counted, and refresh counts the words appended since,
+     * without reading the file from the start again.  The k most frequent
+     * words, and the total of up to k of them in the frequency view, are
+     * kept up to date as words are counted.  Everything else - the sorted
+     * views, their prefix sums and the dictionary - is sorted again the
+     * first time it is needed after words were appended.
+     * 
+     * @param  fileName    the name of the file
+     * @param  k           how many of the most frequent words are kept
+     * @return the analysis of the file so far
+     * @throws IOException file is not found
+     */
+    public static WordAnalysis follow(String fileName, int k) throws IOException
+    {
+        FileFollower follower = new FileFollower(fileName, k);
+        WordAnalysis analysis = new WordAnalysis(follower.getCounts( ));
+        analysis.follower = follower;
+        analysis.source = fileName;
+        analysis.refresh( );
+        return analysis;
+    }
+
+    /**
+     * Counts the words appended to the file since it was last read, when
+     * this analysis follows a growing file.  The views of the words, and
+     * the concordance, chapters and phrases, are rebuilt when they are
+     * next needed, since the text changed.
+     * 
+     * @return the number of words counted; 0 unless this analysis came
+     *         from follow
+     * @throws IOException the file cannot be read
+     */
+    public long refresh() throws IOException
+    {
+        if (follower == null)
+            return 0;
+        long start = System.nanoTime( );
+        long before = follower.getPosition( );
+        long added = follower.poll( );
+        if (counts != follower.getCounts( ))
+        {
+            // the file got shorter and was read again from its start
+            counts = follower.getCounts( );
+            viewVersion = counts.getVersion( ) - 1;
+            places = null;
+            phrases = null;
+            chapters = null;
+            before = 0;
+            followedLookups = 0;
+            followedProbes = 0;
+        }
+        if (follower.getPosition( ) != before)
+        {
+            // what was built from the text so far no longer covers all of it
+            places = null;
+            phrases = null;
+            chapters = null;
+            metrics.ingested(source, "FOLLOW", follower.getPosition( ) - before,
+                             counts.getTotal( ), counts.size( ),
+                             counts.getLookups( ) - followedLookups,
+                             counts.getProbes( ) - followedProbes, System.nanoTime( ) - start);
+            followedLookups = counts.getLookups( );
+            followedProbes = counts.getProbes( );
+        }
+        return added;
+    }
+
+    /**
+     * Analyzes the n-grams of a book (runs of n words in a row) instead of
+     * its single words.  The n-grams are counted with packed integer keys
+     * and then handed to a WordAnalysis, so they can be printed, sorted,
+     * searched and summed like words; each n-gram is written as its words
+     * separated by single spaces.
+     * 
+     * @param  fileName    the name of the text of the book
+     * @param  n           the number of words in each n-gram (1 to 3)
+     * @return the analysis of the n-grams of the book
+     * @throws IOException file is not found
+     */
+    public static WordAnalysis ofNGrams(String fileName, int n) throws IOException
+    {
+        long start = System.nanoTime( );
+        NGramCounter grams = NGramCounter.count(fileName, n);
+        WordAnalysis analysis = new WordAnalysis(grams.toWordCounter( ));
+        analysis.metrics.ingested(fileName, n + "-GRAMS", new File(fileName).length( ),
+                                  analysis.counts, System.nanoTime( ) - start);
+        return analysis;
     }
 
     /**
-     * Reads the file, storing words in an ArrayList.  Words not seen before 
-     * are added to the ArrayList.  Words seen before have their frequency
-     * increased by one.
+     * Reads the file, counting the words in a hash table.  Words not seen
+     * before are added to the table.  Words seen before have their frequency
+     * increased by one.  The words list is not built until it is needed.
      * 
      * @param fileName   the pathname of the file
      * @throws IOException file is not found
@@ -50,17 +368,326 @@ public class WordAnalysis
         while (inFile.hasNext())
         {
             String str = inFile.next().toLowerCase( ).trim();
+            long start = IngestMetrics.ENABLED ? System.nanoTime( ) : 0;
             String newWord = cleanUp(str);
+            if (IngestMetrics.ENABLED)
+                metrics.cleanedUp(System.nanoTime( ) - start);
             if (newWord != null && 0 < newWord.length())
             {
-                // either add newWord to the words list if not there,
+                // either add newWord to the table if not there,
                 // or add to its frequency
-                binarySearchToProcessWord(newWord);
+                counts.add(newWord);
             }
         }
         inFile.close();
     }
 
+    /**
+     * Reads the file through a memory map, counting the words in a hash
+     * table.  The words are cleaned up the same way as in readFile, but
+     * without creating a String for every word.
+     * 
+     * @param fileName   the pathname of the file
+     * @throws IOException file is not found
+     */
+    private void readMappedFile(String fileName) throws IOException
+    {
+        new ByteTokenizer( ).tokenize(fileName,
+            (buf, off, len, position) -> counts.add(buf, off, len));
+    }
+
+    /**
+     * Returns the book as a stream of word ids, which makes positions,
+     * distances and neighbors of words cheap to find.  The ids are those
+     * of the counts behind this analysis.
+     * 
+     * @return the token stream, or null unless the book was read with
+     *         IngestMode.ENCODED
+     */
+    public TokenStream getTokenStream()
+    {
+        return tokens;
+    }
+
+    /**
+     * Returns every appearance of a word in the book with the text around
+     * it (keyword in context), one line per appearance.  The positions come
+     * from a ConcordanceIndex, which is built by one more pass over the
+     * book the first time unless the book was read with
+     * IngestMode.CONCORDANCE; the context is read from a memory map of the
+     * book.
+     * 
+     * @param txt           the word to be found
+     * @param contextChars  how many characters to show on each side
+     * @return the lines; empty if txt does not appear
+     * @throws IOException the book cannot be read
+     */
+    public ArrayList<String> concordance(String txt, int contextChars) throws IOException
+    {
+        if (places == null)
+        {
+            if (source == null)
+                throw new IllegalStateException("the book this analysis came from is not known");
+            places = ConcordanceIndex.build(source);
+        }
+        return places.concordance(txt, contextChars);
+    }
+
+    /**
+     * Returns the counts of the book chapter by chapter, splitting it at
+     * the lines that begin with "CHAPTER".  The chapters are counted on
+     * several threads the first time, and the result is kept.
+     * 
+     * @return the chapter counts
+     * @throws IOException the book cannot be read
+     */
+    public ChapterAnalysis chapters() throws IOException
+    {
+        if (chapters == null)
+        {
+            if (source == null)
+                throw new IllegalStateException("the book this analysis came from is not known");
+            chapters = ChapterAnalysis.build(source, Runtime.getRuntime( ).availableProcessors( ),
+                                             ChapterAnalysis.DEFAULT_MARKER);
+        }
+        return chapters;
+    }
+
+    /**
+     * Returns the counts of each book of the corpus this analysis was made
+     * from.
+     * 
+     * @return the corpus, or null unless this analysis came from ofCorpus
+     */
+    public CorpusAnalysis corpus()
+    {
+        return corpus;
+    }
+
+    /**
+     * Returns a suffix array over the words of the book, for counting and
+     * finding phrases.  It is built from the token stream if the book was
+     * read with IngestMode.ENCODED, and otherwise by reading the book again,
+     * the first time it is needed; the result is kept.
+     * 
+     * @return the suffix array
+     * @throws IOException the book cannot be read
+     */
+    public SuffixArray phrases() throws IOException
+    {
+        if (phrases == null)
+        {
+            if (tokens != null)
+                phrases = new SuffixArray(tokens);
+            else if (source == null)
+                throw new IllegalStateException("the book this analysis came from is not known");
+            else
+                phrases = SuffixArray.build(source);
+        }
+        return phrases;
+    }
+
+    /**
+     * Returns the counts of the words in the book.
+     * 
+     * @return the word counter behind this analysis
+     */
+    WordCounter getCounts()
+    {
+        return counts;
+    }
+
+    /**
+     * Drops the views if the counts have changed since they were built.
+     */
+    private void checkViews()
+    {
+        if (viewVersion != counts.getVersion())
+        {
+            byWord = null;
+            byFrequency = null;
+            byWordTotals = null;
+            byFrequencyTotals = null;
+            dictionary = null;
+            viewVersion = counts.getVersion();
+        }
+    }
+
+    /**
+     * Points the words list at the view for its current organization,
+     * building the view if it is not cached.
+     */
+    private void ensureWordList()
+    {
+        checkViews();
+        if (offHeap != null)
+        {
+            ids = lexicographic ? lexicographicIds() : frequencyIds();
+            totals = lexicographic ? byWordTotals : byFrequencyTotals;
+        }
+        else if (lexicographic)
+        {
+            words = lexicographicView();
+            totals = byWordTotals;
+        }
+        else
+        {
+            words = frequencyView();
+            totals = byFrequencyTotals;
+        }
+    }
+
+    /**
+     * Adds up the frequencies of a view once, so the total of any number
+     * of its first words can be looked up.
+     * 
+     * @param view  the words in some order
+     * @return the prefix sums; element i is the total frequency of the
+     *         first i words of view
+     */
+    private static long[] prefixTotals(ArrayList<Word> view)
+    {
+        long[] sums = new long[view.size() + 1];
+        for (int i = 0; i < view.size(); i++)
+            sums[i + 1] = sums[i] + view.get(i).getFrequency();
+        return sums;
+    }
+
+    /**
+     * Returns the words in lexicographic order, sorting them the first
+     * time they are asked for.
+     * 
+     * @return the lexicographic view of the counts
+     */
+    private ArrayList<Word> lexicographicView()
+    {
+        if (byWord == null)
+        {
+            long start = System.nanoTime( );
+            words = counts.toList();
+            LexiconSort.sort(words);
+            metrics.sorted("lexicographic", words.size(), System.nanoTime( ) - start);
+            byWord = words;
+            byWordTotals = prefixTotals(byWord);
+        }
+        return byWord;
+    }
+
+    /**
+     * Returns the words ordered by frequency, sorting them the first time
+     * they are asked for.  Words with the same frequency are in
+     * lexicographic order.
+     * 
+     * @return the frequency view of the counts
+     */
+    private ArrayList<Word> frequencyView()
+    {
+        if (byFrequency == null)
+        {
+            ArrayList<Word> sorted = new ArrayList<Word>(lexicographicView());
+            long start = System.nanoTime( );
+            words = sorted;
+            FrequencySort.sort(words);
+            metrics.sorted("frequency", words.size(), System.nanoTime( ) - start);
+            byFrequency = words;
+            byFrequencyTotals = prefixTotals(byFrequency);
+        }
+        return byFrequency;
+    }
+
+    /**
+     * Returns the ids of the words kept off the heap in lexicographic
+     * order, sorting them the first time they are asked for.  Only the
+     * ids are sorted; no Word is made.
+     * 
+     * @return the lexicographic view of offHeap
+     */
+    private int[] lexicographicIds()
+    {
+        if (idsByWord == null)
+        {
+            long start = System.nanoTime( );
+            idsByWord = offHeap.sortedIds( );
+            metrics.sorted("lexicographic", idsByWord.length, System.nanoTime( ) - start);
+            wordRank = new int[idsByWord.length];
+            for (int i = 0; i < idsByWord.length; i++)
+                wordRank[idsByWord[i]] = i;
+            byWordTotals = prefixTotals(idsByWord);
+        }
+        return idsByWord;
+    }
+
+    /**
+     * Returns the ids of the words kept off the heap ordered by frequency,
+     * sorting them the first time they are asked for.  Words with the same
+     * frequency are in lexicographic order.
+     * 
+     * @return the frequency view of offHeap
+     */
+    private int[] frequencyIds()
+    {
+        if (idsByFrequency == null)
+        {
+            int[] sorted = lexicographicIds();
+            long start = System.nanoTime( );
+            idsByFrequency = offHeap.byFrequency(sorted);
+            metrics.sorted("frequency", idsByFrequency.length, System.nanoTime( ) - start);
+            byFrequencyTotals = prefixTotals(idsByFrequency);
+        }
+        return idsByFrequency;
+    }
+
+    /**
+     * Adds up the frequencies of a view of offHeap once, so the total of
+     * any number of its first words can be looked up.
+     * 
+     * @param view  the ids of the words in some order
+     * @return the prefix sums; element i is the total frequency of the
+     *         first i words of view
+     */
+    private long[] prefixTotals(int[] view)
+    {
+        long[] sums = new long[view.length + 1];
+        for (int i = 0; i < view.length; i++)
+            sums[i + 1] = sums[i] + offHeap.countAt(view[i]);
+        return sums;
+    }
+
+    /**
+     * Returns the number of words in the current organization.
+     * 
+     * @return the size of the words list, or of the ids view when the
+     *         words are kept off the heap
+     */
+    private int viewSize()
+    {
+        return offHeap != null ? ids.length : words.size();
+    }
+
+    /**
+     * Returns the word at a position of the current organization.  When
+     * the words are kept off the heap, only this Word is made.
+     * 
+     * @param index  the position of the word
+     * @return the word
+     */
+    private Word viewWord(int index)
+    {
+        return offHeap != null ? offHeap.wordOf(ids[index]) : words.get(index);
+    }
+
+    /**
+     * Builds the dictionary trie from the lexicographic view if it has not
+     * been built yet.  It is built once and reused by every lookup.
+     */
+    private void ensureDictionary()
+    {
+        checkViews();
+        if (dictionary == null)
+            dictionary = new WordTrie(lexicographicView());
+        ensureWordList();
+    }
+
     /**
      * Cleans up a string of characters so it has only apostrophes,
      * hypens, or letters a through z.
@@ -139,6 +766,9 @@ public class WordAnalysis
      * or add one to its frequency. 
      * The words list maintains its lexicographical order
      * and no words appears in the list more than once.
+     * Note: readFile counts with a WordCounter instead; each insertion
+     *       here shifts the rest of the list.  WordAnalysisBenchmark
+     *       measures this strategy as a baseline.
      * 
      * @precondition  words list is in lexicographic order
      * @postcondition words list is in lexicographic order
@@ -148,7 +778,7 @@ public class WordAnalysis
      * @return     the position txt occupies in words list or 
      *             Integer.MIN_VALUE if no match is found
      */
-    private int sequentialSearchToProcessWord(String txt)
+    int sequentialSearchToProcessWord(String txt)
     {
         if (words.size() == 0)
             return addWord(txt,-1);
@@ -160,6 +790,8 @@ public class WordAnalysis
             if (index < words.size())
                 compare = words.get(index).getWord().compareTo(txt);
         }
+        if (IngestMetrics.ENABLED)
+            metrics.searched(Math.min(index + 1, words.size()));
         if (compare == 0)
         {
             // match has been found
@@ -183,19 +815,23 @@ public class WordAnalysis
      * @return     the position txt occupies in words list or 
      *             Integer.MIN_VALUE if no match is found
      */
-    private int binarySearchToProcessWord(String txt)
+    int binarySearchToProcessWord(String txt)
     {
         if (words.size() == 0)
             return addWord(txt,-1);
         int high = words.size()-1;
         int low = 0;
         int mid =0;
+        int compared = 0;
         while (high >= low)
         {
             mid = (high+low)/2;
             int c = words.get(mid).getWord().compareTo(txt);
+            compared++;
             if (c == 0)
             {
+                if (IngestMetrics.ENABLED)
+                    metrics.searched(compared);
                 words.get(mid).addOne();
                 return mid;
             }
@@ -204,6 +840,8 @@ public class WordAnalysis
             else
                 high = mid -1;
         }
+        if (IngestMetrics.ENABLED)
+            metrics.searched(compared);
         return addWord(txt, high);
     }
     
@@ -230,6 +868,11 @@ public class WordAnalysis
         }
 
         Word w = new Word(text);
+        if (IngestMetrics.ENABLED)
+        {
+            metrics.shifted(words.size() - Math.min(Math.max(index, 0), words.size()));
+            metrics.vocabulary(words.size() + 1);
+        }
         // determine if insertion is a normal or special case
         if (0 < index && index < words.size())
         {
@@ -266,10 +909,36 @@ public class WordAnalysis
      */
     public void print()
     {
+        if (table != null && lexicographic)
+        {
+            printTable(table.size( ));
+            return;
+        }
+        ensureWordList();
         printHeader();
-        for(int i = 0; i < words.size();i++)
+        for(int i = 0; i < viewSize();i++)
         {
-            System.out.println(words.get(i));
+            System.out.println(viewWord(i));
+        }
+    }
+
+    /**
+     * Prints the first x words of the table on disk, in lexicographic
+     * order, reading them a block at a time.
+     * 
+     * @param x  the number of words to be printed
+     */
+    private void printTable(long x)
+    {
+        try
+        {
+            WordTable.Cursor cursor = table.cursor("");
+            for (long i = 0; i < x && cursor.next( ); i++)
+                System.out.println(new Word(cursor.word( ), cursor.count( )));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -283,8 +952,36 @@ public class WordAnalysis
      */
     public void printTopWords(int x)
     {
+        if (table != null && lexicographic)
+        {
+            printTable(x);
+            return;
+        }
+        ensureWordList();
         for(int i = 0; i < x; i++)
-            System.out.println(words.get(i));
+        {
+            if (approximate == null)
+                System.out.println(viewWord(i));
+            else
+                System.out.println(words.get(i) + "  " + bounds(words.get(i).getWord()));
+        }
+    }
+
+    /**
+     * Describes the range the true frequency of txt lies in, when the
+     * words were counted approximately.
+     * 
+     * @param txt  the word
+     * @return the range, and how sure it is
+     */
+    private String bounds(String txt)
+    {
+        long low = approximate.lowerBound(txt);
+        long high = approximate.estimate(txt);
+        if (approximate.isExact(txt))
+            return String.format("(between %d and %d)", low, high);
+        return String.format("(between %d and %d with probability %.2f)",
+                             low, high, approximate.getConfidence());
     }
 
     /**
@@ -294,8 +991,25 @@ public class WordAnalysis
      */
     public void printWord(int index)
     {
-        if (0 <= index && index < words.size())
-            System.out.println(words.get(index));
+        if (table != null && lexicographic)
+        {
+            try
+            {
+                if (0 <= index && index < table.size( ))
+                    System.out.println(table.wordAt(index));
+                else
+                    System.out.println("\n\nAsked for word does not appear in document. " +
+                                       "Index = " + index);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+        ensureWordList();
+        if (0 <= index && index < viewSize())
+            System.out.println(viewWord(index));
         else
             System.out.println("\n\nAsked for word does not appear in document. " +
                                "Index = " + index);
@@ -306,14 +1020,18 @@ public class WordAnalysis
      * 
      * @return the total number of words that are in the original document;
      *         in other words, the total frequency of the words in "words"
-     *         list
+     *         list.  The total is kept up to date as words are counted,
+     *         and is exact even when the words were counted approximately.
      */
     public long sumWords()
     {
-        int sum = 0;
-        for(int i = 0; i < words.size(); i++)
-            sum += words.get(i).getFrequency();
-        return sum;
+        if (approximate != null)
+            return approximate.getTotal();
+        if (table != null)
+            return table.getTotal( );
+        if (offHeap != null)
+            return offHeap.getTotal( );
+        return counts.getTotal();
     }
 
     /**
@@ -322,18 +1040,65 @@ public class WordAnalysis
      * Note: the organization of the list (ordered alphabetically or 
      *       by frequency) affects this outcome.
      * 
+     * The sum is looked up in the prefix sums of the current view, so it
+     * takes constant time.
+     * 
+     * When a growing file is followed, the frequency sum of up to k words
+     * is taken from the k most frequent words kept by the follower, so it
+     * does not sort the words again after an append.
+     * 
+     * When the words were counted with a memory budget, the lexicographic
+     * sum is read from the table on disk.  The frequency view holds only
+     * the most frequent words, so a number of words between that many and
+     * all of them cannot be summed exactly and is rejected.
+     * 
      * @param number the number of words which are to be used to
      *               generate the sum.  The "number" indicates the 
      *               first "number" positions in the words list.
+     *               Numbers past the end of the list count every word.
      *               
      * @return how many times the top "number" words occurs
+     * @throws IllegalArgumentException the words were counted with a
+     *         memory budget, the list is by frequency and number is more
+     *         than the words kept in memory but fewer than all the words
      */
     public long sumTopWords( int number )
     {
-        int sum = 0;
-        for(int i = 0; i < number; i++)
-            sum += words.get(i).getFrequency();
-        return sum;
+        if (table != null)
+            return sumTopTableWords(number);
+        if (follower != null && !lexicographic && number <= follower.getK( ))
+            return follower.sumTopWords(Math.max(0, number));
+        ensureWordList();
+        return totals[Math.max(0, Math.min(number, viewSize()))];
+    }
+
+    /**
+     * Sums the first words of the current view when the words were counted
+     * with a memory budget.
+     * 
+     * @param number the number of words to be summed
+     * @return how many times they occur
+     */
+    private long sumTopTableWords(int number)
+    {
+        if (number >= table.size( ))
+            return table.getTotal( );
+        if (lexicographic)
+        {
+            try
+            {
+                return table.totalOfFirst(number);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        ensureWordList();
+        if (number > words.size())
+            throw new IllegalArgumentException("only the " + words.size( ) +
+                                               " most frequent words are kept in memory");
+        return totals[Math.max(0, number)];
     }
 
     /**
@@ -364,7 +1129,10 @@ public class WordAnalysis
      */
     public double getWordQuotient(int num)
     {
-        return sumTopWords(num)/(double)sumWords();
+        long total = sumWords();
+        if (total == 0)
+            return 0;
+        return sumTopWords(num)/(double)total;
     }
     
     /**
@@ -385,24 +1153,49 @@ public class WordAnalysis
      * file, excluding repetitions.  To state it another way, each
      * word in the list counts exactly once, regardless of its frequency.
      * 
+     * When the words were counted approximately, the number is estimated
+     * by the HyperLogLog that saw every word, since only the most frequent
+     * words are kept.
+     * 
      * @return the total number of different words that are in the document.
      */
     public int getNumberOfUniqueWords()
     {
-        return words.size();
+        if (approximate != null)
+            return (int) Math.min(Integer.MAX_VALUE, approximate.getDistinct( ).estimate( ));
+        if (table != null)
+            return (int) Math.min(Integer.MAX_VALUE, table.size( ));
+        if (offHeap != null)
+            return offHeap.size( );
+        return counts.size();
     }
 
     /**
-     * Sorts the words alphabetically.
+     * Sorts the words alphabetically.  The sorted order is kept, so asking
+     * again before the counts change costs nothing.
      */
     public void sortWordsLexi( )
     {
+        lexicographic = true;
+        ensureWordList();
+    }
+
+    /**
+     * Sorts list lexicographically with the recursive merge sort the
+     * lexicographic view used before LexiconSort.  WordAnalysisBenchmark
+     * measures it as a baseline.
+     * 
+     * @param list  the words to be sorted; it becomes the words list
+     */
+    void mergeSortLexi(ArrayList<Word> list)
+    {
+        words = list;
         sortWordsHelper(0,words.size()-1);
     }
 
     /**
      * Sort "words" list lexicographically using a recursive merge sort.
-     * This is a helper method for sortWords.
+     * This is a helper method for mergeSortLexi.
      *       
      * @param low    the smallest index to be used in this portion of the sort
      * @param high   the last index to be used (inclusive) in this portion of 
@@ -410,7 +1203,7 @@ public class WordAnalysis
      */
     private void sortWordsHelper(int low , int high)
     {
-        if(low == high)
+        if(low >= high)
             return;
         int mid = (low+high)/2;
         sortWordsHelper(low, mid);
@@ -462,16 +1255,32 @@ public class WordAnalysis
     }
 
     /**
-     * Sorts the words alphabetically.
+     * Sorts the words by frequency, most frequent first.  Words with the
+     * same frequency are in lexicographic order.  The sorted order is
+     * kept, so asking again before the counts change costs nothing.
      */
     public void sortWordsFreq( )
     {
+        lexicographic = false;
+        ensureWordList();
+    }
+
+    /**
+     * Sorts list by frequency with the recursive merge sort the frequency
+     * view used before FrequencySort.  WordAnalysisBenchmark measures it as
+     * a baseline.
+     * 
+     * @param list  the words to be sorted; it becomes the words list
+     */
+    void mergeSortFreq(ArrayList<Word> list)
+    {
+        words = list;
         sortWordsFreqHelper(0,words.size()-1);
     }
 
     /**
-     * Sort "words" list lexicographically using a recursive merge sort.
-     * This is a helper method for sortWords.
+     * Sort "words" list by frequency using a recursive merge sort.
+     * This is a helper method for mergeSortFreq.
      *       
      * @param low    the smallest index to be used in this portion of the sort
      * @param high   the last index to be used (inclusive) in this portion of 
@@ -479,7 +1288,7 @@ public class WordAnalysis
      */
     private void sortWordsFreqHelper(int low , int high)
     {
-        if(low == high)
+        if(low >= high)
             return;
         int mid = (low+high)/2;
         sortWordsFreqHelper(low, mid);
@@ -513,7 +1322,7 @@ public class WordAnalysis
                 merged[index] = words.get(findex);
                 findex++;
             }
-            else if(words.get(sindex).compareFrequencyTo(words.get(findex)) < 0)
+            else if(words.get(sindex).compareFrequencyTo(words.get(findex)) <= 0)
             {
                 merged[index] = words.get(findex);
                 findex++;
@@ -530,9 +1339,37 @@ public class WordAnalysis
         }
     }
     
+    /**
+     * Finds the k most frequent words without sorting the words list,
+     * which is left in its current organization.
+     * 
+     * @param k  the number of words wanted
+     * @return the k most frequent words, most frequent first; words with
+     *         the same frequency are in lexicographic order
+     */
+    public ArrayList<Word> topWords(int k)
+    {
+        if (follower != null && k <= follower.getK( ))
+            return follower.topWords(k);
+        if (offHeap != null)
+            return offHeap.topWords(k);
+        return counts.topWords(k);
+    }
+
     /**
      * Finds the parameter "txt" in the words list and returns the index
      * at which it is found. If txt is not in the words list, -1 is returned.
+     * The lookup uses the dictionary trie, so it takes time proportional
+     * to the length of txt; switching to lexicographic order reuses the
+     * cached view.
+     * 
+     * When the words were counted approximately, the words list holds
+     * only the most frequent words, and the estimated frequency of txt is
+     * printed with the range its true frequency lies in, whether txt is
+     * in the list or not.
+     * 
+     * When the words were counted with a memory budget, txt is looked up
+     * in the table on disk, and the index is its place in that table.
      * 
      * @postcondition   words has been sorted alphabetically
      * 
@@ -542,41 +1379,110 @@ public class WordAnalysis
      */
     public int findWord(String txt)
     {
+        if (table != null)
+        {
+            lexicographic = true;
+            try
+            {
+                return (int) Math.min(Integer.MAX_VALUE, table.rankOf(txt));
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (follower != null && counts.indexOf(txt) < 0)
+        {
+            // a word that was never counted has no place to sort for
+            lexicographic = true;
+            return -1;
+        }
         sortWordsLexi( );
-        return searchWord (txt, 0, words.size( ) - 1);
+        if (offHeap != null)
+        {
+            int id = offHeap.indexOf(txt);
+            return id < 0 ? -1 : wordRank[id];
+        }
+        ensureDictionary();
+        if (approximate != null)
+            System.out.println("Estimated frequency of " + txt + ": " +
+                               approximate.estimate(txt) + " " + bounds(txt));
+        return dictionary.rankOf(txt);
     }
 
     /**
-     * Using a binary search, finds the  parameter txt in the words list and
-     * returns the index at which it is found. If txt is not in the words list, 
-     * a -1 is returned.
-     * This is a helper method for findWord.
+     * Finds every word that starts with prefix.
      * 
-     * @precondition words list must be sorted alphabetically
+     * @param prefix  the start of the words wanted
+     * @return the words starting with prefix, in lexicographic order
+     */
+    public ArrayList<Word> findWordsStartingWith(String prefix)
+    {
+        if (table != null)
+        {
+            try
+            {
+                return table.wordsStartingWith(prefix, Integer.MAX_VALUE);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (offHeap != null)
+        {
+            int[] sorted = lexicographicIds();
+            int from = offHeap.lowerBound(sorted, prefix);
+            int to = offHeap.prefixEnd(sorted, prefix);
+            ArrayList<Word> found = new ArrayList<Word>(to - from);
+            for (int i = from; i < to; i++)
+                found.add(offHeap.wordOf(sorted[i]));
+            return found;
+        }
+        ensureDictionary();
+        return dictionary.wordsStartingWith(prefix);
+    }
+
+    /**
+     * Determines how many times the words starting with prefix have
+     * appeared in the original document.
      * 
-     * @param txt  the word to be found in words list 
-     * @param low    the smallest index to be used in this portion of the search
-     * @param high   the last index to be used (inclusive) in this portion of 
-     *               the search
-     *               
-     * @return the index in which txt was found in words list.  
-     *         If txt is not in the words list, -1 is returned.
+     * @param prefix  the start of the words wanted
+     * @return the total frequency of the words starting with prefix
      */
-    private int searchWord(String txt, int low, int high)
+    public long sumWordsStartingWith(String prefix)
     {
-        if(high < low)
-            return -1;
-        int mid = (low+high)/2;
-        int compare = words.get(mid).getWord().compareTo(txt);
-        if (compare == 0)
+        if (table != null)
         {
-            return mid;
+            try
+            {
+                return table.totalStartingWith(prefix);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
         }
-        if(compare > 0)
-            return searchWord( txt, low, mid-1);
-        return searchWord(txt, mid+1, high);
+        if (offHeap != null)
+        {
+            int[] sorted = lexicographicIds();
+            return byWordTotals[offHeap.prefixEnd(sorted, prefix)] -
+                   byWordTotals[offHeap.lowerBound(sorted, prefix)];
+        }
+        ensureDictionary();
+        return dictionary.totalStartingWith(prefix);
     }
-    
+
+    /**
+     * Prints where the time of this analysis went: ingest speed, sort
+     * time, vocabulary size and, when IngestMetrics.ENABLED, the per-word
+     * counters.
+     */
+    public void printMetrics()
+    {
+        metrics.print();
+    }
+
     /**
      * Prints out the select screen that user picks their
      * option from.
@@ -594,7 +1500,14 @@ public class WordAnalysis
             "\t 8 - Prints out all the words in the words list, sorted by frequency. \n" + 
             "\t 9 - Prints out all the words in the words list, sorted lexigraphically. \n" +
             "\t10 - Prints out how may times a user decided word appears in \"words\" list.  \n" +
-            "\t11 - Quit \n");
+            "\t11 - Quit \n" +
+            "\t12 - Prints out the words starting with a user decided prefix and their total frequency. \n" +
+            "\t13 - Prints out how long reading and sorting took. \n" +
+            "\t14 - Prints out every place a user decided word appears, with the text around it. \n" +
+            "\t15 - Prints out the chapters in which a user decided word is most frequent. \n" +
+            "\t16 - Prints out how many times a user decided phrase appears, and where. \n" +
+            "\t17 - Prints out how many times a user decided word appears in each book of the corpus. \n" +
+            "\t18 - Prints out the most similar books of the corpus and their most distinctive words. \n");
     }
     
     /**
@@ -610,6 +1523,15 @@ public class WordAnalysis
     {
         Scanner in = new Scanner(System.in);
         boolean done = false;
+        try
+        {
+            if (refresh( ) > 0)
+                System.out.println("\n\n" + counts.getTotal( ) + " words so far");
+        }
+        catch (IOException e)
+        {
+            System.out.println("\n\nThe file could not be read: " + e.getMessage());
+        }
         printMenu();
         int choice = in.nextInt();
         // clear the input buffer
@@ -638,7 +1560,14 @@ public class WordAnalysis
         {
             System.out.print("\n\t How many of the top words would you like to include? \n\t");
             int tops = in.nextInt();
-            System.out.println(getWordQuotient(tops));
+            try
+            {
+                System.out.println(getWordQuotient(tops));
+            }
+            catch (IllegalArgumentException e)
+            {
+                System.out.println("\n\n" + e.getMessage( ));
+            }
         }
         else if(choice == 6)
         {
@@ -649,7 +1578,14 @@ public class WordAnalysis
             System.out.print("\n\t How many of the top words would you like to include? \n\t");
             int tops = in.nextInt();
             sortWordsFreq();
-            System.out.println(calculatePercentage(tops));
+            try
+            {
+                System.out.println(calculatePercentage(tops));
+            }
+            catch (IllegalArgumentException e)
+            {
+                System.out.println("\n\n" + e.getMessage( ));
+            }
         }
         else if(choice == 8)
         {
@@ -665,26 +1601,155 @@ public class WordAnalysis
         {
             System.out.print("\n\t What word would you like to search for? \n\t");
             String word = in.next();
-            printWord(findWord(word));
+            int index = findWord(word);
+            if (approximate == null || index >= 0)
+                printWord(index);
         }
         else if (choice == 11)
         {
             done = true;
-        }  
+        }
+        else if (choice == 12)
+        {
+            System.out.print("\n\t What prefix would you like to search for? \n\t");
+            String prefix = in.next().toLowerCase();
+            printHeader();
+            ArrayList<Word> found = findWordsStartingWith(prefix);
+            for (int i = 0; i < found.size(); i++)
+                System.out.println(found.get(i));
+            System.out.println("Total: " + sumWordsStartingWith(prefix));
+        }
+        else if (choice == 13)
+        {
+            printMetrics();
+        }
+        else if (corpus != null && choice >= 14 && choice <= 16)
+        {
+            // a corpus has no single text to read the words in context from
+            System.out.println("Only available for a single book.");
+        }
+        else if (choice == 14)
+        {
+            System.out.print("\n\t What word would you like to see in context? \n\t");
+            String word = in.next().toLowerCase();
+            try
+            {
+                ArrayList<String> lines = concordance(word, 30);
+                for (int i = 0; i < lines.size(); i++)
+                    System.out.println(lines.get(i));
+            }
+            catch (IOException e)
+            {
+                System.out.println("\n\nThe book could not be read: " + e.getMessage());
+            }
+            catch (IllegalStateException e)
+            {
+                System.out.println("\n\nNot available: " + e.getMessage());
+            }
+        }
+        else if (choice == 15)
+        {
+            System.out.print("\n\t What word would you like to find the chapters of? \n\t");
+            String word = in.next().toLowerCase();
+            try
+            {
+                ChapterAnalysis book = chapters();
+                int[] peaks = book.peakChapters(word, 5);
+                for (int i = 0; i < peaks.length; i++)
+                {
+                    int c = peaks[i];
+                    System.out.printf("%-40s %6d %8.2f per 1000 words\n", book.getTitle(c),
+                        book.getFrequency(word, c),
+                        1000.0 * book.getFrequency(word, c) / Math.max(1, book.getCounts(c).getTotal()));
+                }
+            }
+            catch (IOException e)
+            {
+                System.out.println("\n\nThe book could not be read: " + e.getMessage());
+            }
+            catch (IllegalStateException e)
+            {
+                System.out.println("\n\nNot available: " + e.getMessage());
+            }
+        }
+        else if (choice == 16)
+        {
+            System.out.print("\n\t What phrase would you like to search for? \n\t");
+            String phrase = in.nextLine();
+            try
+            {
+                int[] found = phrases().locatePhrase(phrase);
+                System.out.println(phrase + " appears " + found.length + " times");
+                for (int i = 0; i < found.length && i < 20; i++)
+                    System.out.println("\tat word " + found[i]);
+            }
+            catch (IOException e)
+            {
+                System.out.println("\n\nThe book could not be read: " + e.getMessage());
+            }
+            catch (IllegalStateException e)
+            {
+                System.out.println("\n\nNot available: " + e.getMessage());
+            }
+        }
+        else if (choice == 17)
+        {
+            System.out.print("\n\t What word would you like to find in each book? \n\t");
+            String word = in.next().toLowerCase();
+            if (corpus == null)
+                System.out.println("Only one book was read.");
+            else
+            {
+                int[] found = corpus.getFrequencies(word);
+                for (int i = 0; i < found.length; i++)
+                    System.out.printf("%-32s %8d\n", corpus.getName(i), found[i]);
+                System.out.printf("%-32s %8d\n", "(corpus)", corpus.getFrequency(word));
+            }
+        }
+        else if (choice == 18)
+        {
+            if (corpus == null)
+                System.out.println("Only one book was read.");
+            else
+            {
+                BookSimilarity books = new BookSimilarity(corpus);
+                for (BookSimilarity.Pair p : books.mostSimilarPairs(10))
+                    System.out.printf("%.4f  %-32s %s\n", p.getSimilarity(),
+                        corpus.getName(p.getBook()), corpus.getName(p.getOther()));
+                for (int i = 0; i < corpus.size(); i++)
+                    System.out.println(corpus.getName(i) + ": " +
+                        String.join(" ", books.distinctiveWords(i, 8)));
+            }
+        }
         return done;
     }
     
     /**
      * Entry point into WordAnalysis.  It reads the input file and loops
-     * until the user indicates that he or she is done.
+     * until the user indicates that he or she is done.  If the argument is
+     * a directory, every .txt book in it is read as one corpus; after
+     * -f, the file is followed as it grows.
      * 
-     * @param  args         array with information that may be passed
-     *                      at start of processing
+     * @param  args         the pathname of a book or a directory of books
+     *                      (MobyDick.txt by default), optionally after -f
      * @throws IOException  if file with the text cannot be found
      */
     public static void main (String [] args) throws IOException
     {
-        WordAnalysis book = new WordAnalysis("MobyDick.txt");
+        boolean follow = args.length > 0 && args[0].equals("-f");
+        if (follow)
+            args = Arrays.copyOfRange(args, 1, args.length);
+        String fileName = args.length > 0 ? args[0] : "MobyDick.txt";
+        WordAnalysis book;
+        if (follow)
+            book = WordAnalysis.follow(fileName, 100);
+        else if (new File(fileName).isDirectory( ))
+        {
+            book = WordAnalysis.ofCorpus(fileName);
+            book.corpus( ).print( );
+        }
+        else
+            book = WordAnalysis.open(fileName);
         boolean areWeDoneYet = false;
         while ( ! areWeDoneYet)
         {
@@ -0,0 +1,365 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the parts of the Book-Analysis pipeline so changes to them can
+ * be compared against a baseline.  There are five groups of benchmarks:
+ *
+ *     ingest    reading a book end to end with each IngestMode, for the
+ *               book and for generated texts of the requested sizes;
+ *     footprint the heap kept by the vocabulary of the same texts, counted
+ *               by a WordCounter and by an OffHeapVocabulary;
+ *     search    counting words with the sorted-list strategies,
+ *               sequentialSearchToProcessWord and binarySearchToProcessWord;
+ *     sort      building the lexicographic and the frequency views, and
+ *               sorting generated vocabularies of the requested sizes with
+ *               the original merge sorts, with LexiconSort and with
+ *               FrequencySort;
+ *     findWord  looking up single words.
+ *
+ * Each benchmark is run a few times to warm up and then measured.  The
+ * report gives operations per second, milliseconds per run and bytes
+ * allocated per operation by the measuring thread (the same figure the
+ * gc profiler of a benchmark harness reports as gc.alloc.rate.norm).
+ * The footprint lines give the heap still in use after the vocabulary is
+ * built, in bytes and per distinct word, and the off-heap bytes used.
+ *
+ * Usage: java WordAnalysisBenchmark [book] [sizes] [vocabularies]
+ *     book          the text to analyze (MobyDick.txt by default)
+ *     sizes         comma-separated sizes of generated texts, such as
+ *                   1m,64m,1g (1m by default; "none" skips them)
+ *     vocabularies  comma-separated numbers of distinct words to sort
+ *                   (100000,1000000,10000000 by default; "none" skips them)
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class WordAnalysisBenchmark
+{
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+    // the sorted-list strategies are quadratic, so they only see this many words
+    private static final int SEARCH_WORDS = 50000;
+    private static final int LOOKUPS = 1000000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // results are stored here so the JIT cannot drop the work
+    private static volatile long sink;
+
+    /**
+     * Something to measure.
+     */
+    private interface Body
+    {
+        /**
+         * Runs the benchmark once.
+         *
+         * @return the number of operations performed
+         * @throws IOException a file cannot be read
+         */
+        long run() throws IOException;
+    }
+
+    /**
+     * Runs every benchmark group and prints the report.
+     *
+     * @param  args         the book and the sizes of the generated texts
+     * @throws IOException  if the book cannot be found
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String book = args.length > 0 ? args[0] : "MobyDick.txt";
+        String sizes = args.length > 1 ? args[1] : "1m";
+        String vocabularies = args.length > 2 ? args[2] : "100000,1000000,10000000";
+
+        System.out.printf("%-44s %14s %10s %14s\n", "Benchmark", "ops/s", "ms/run", "B/op");
+
+        ingest(book, new File(book).getName());
+        footprint(book, new File(book).getName());
+        if (!sizes.equals("none"))
+        {
+            for (String size : sizes.split(","))
+            {
+                long bytes = parseSize(size);
+                File text = File.createTempFile("corpus-" + size + "-", ".txt");
+                text.deleteOnExit();
+                generate(text, bytes, new Random(42));
+                ingest(text.getPath(), "corpus-" + size);
+                footprint(text.getPath(), "corpus-" + size);
+                text.delete();
+            }
+        }
+
+        ArrayList<String> tokens = tokens(book, SEARCH_WORDS);
+        measure("search.sequential", () -> {
+            WordAnalysis analysis = new WordAnalysis(new WordCounter());
+            for (String txt : tokens)
+                analysis.sequentialSearchToProcessWord(txt);
+            return tokens.size();
+        });
+        measure("search.binary", () -> {
+            WordAnalysis analysis = new WordAnalysis(new WordCounter());
+            for (String txt : tokens)
+                analysis.binarySearchToProcessWord(txt);
+            return tokens.size();
+        });
+
+        WordCounter counts = new WordAnalysis(book, IngestMode.MAPPED).getCounts();
+        measure("sort.sortWordsLexi", () -> {
+            new WordAnalysis(counts).sortWordsLexi();
+            return counts.size();
+        });
+        measure("sort.sortWordsFreq", () -> {
+            new WordAnalysis(counts).sortWordsFreq();
+            return counts.size();
+        });
+
+        if (!vocabularies.equals("none"))
+        {
+            for (String size : vocabularies.split(","))
+            {
+                Word[] vocabulary = vocabulary((int) parseSize(size), new Random(11));
+                measure("sort.mergeSort " + size, () -> {
+                    ArrayList<Word> list = new ArrayList<Word>(Arrays.asList(vocabulary));
+                    new WordAnalysis(new WordCounter()).mergeSortLexi(list);
+                    return list.size();
+                });
+                measure("sort.lexiconSort " + size, () -> {
+                    Word[] sorted = vocabulary.clone();
+                    LexiconSort.sortSequential(sorted);
+                    return sorted.length;
+                });
+                measure("sort.lexiconSortParallel " + size, () -> {
+                    Word[] sorted = vocabulary.clone();
+                    LexiconSort.sortParallel(sorted, ForkJoinPool.commonPool());
+                    return sorted.length;
+                });
+                measure("sort.mergeSortFreq " + size, () -> {
+                    ArrayList<Word> list = new ArrayList<Word>(Arrays.asList(vocabulary));
+                    new WordAnalysis(new WordCounter()).mergeSortFreq(list);
+                    return list.size();
+                });
+                measure("sort.frequencySort " + size, () -> {
+                    ArrayList<Word> list = new ArrayList<Word>(Arrays.asList(vocabulary));
+                    FrequencySort.sort(list);
+                    return list.size();
+                });
+            }
+        }
+
+        WordAnalysis analysis = new WordAnalysis(counts);
+        String[] queries = new String[1024];
+        Random random = new Random(7);
+        for (int i = 0; i < queries.length; i++)
+        {
+            // about one query in eight misses
+            queries[i] = i % 8 == 0 ? "zz" + i : counts.wordAt(random.nextInt(counts.size()));
+        }
+        analysis.findWord(queries[0]);
+        measure("findWord", () -> {
+            long found = 0;
+            for (int i = 0; i < LOOKUPS; i++)
+                found += analysis.findWord(queries[i & (queries.length - 1)]);
+            sink = found;
+            return LOOKUPS;
+        });
+    }
+
+    /**
+     * Measures reading a file with every IngestMode.  One operation is
+     * one word, so ops/s is words per second.
+     */
+    private static void ingest(String fileName, String name) throws IOException
+    {
+        for (IngestMode mode : IngestMode.values())
+        {
+            measure("ingest." + mode.name().toLowerCase() + " " + name, () ->
+            {
+                // a cache left by the run before would make this a load
+                deleteCaches(fileName);
+                return new WordAnalysis(fileName, mode).sumWords();
+            });
+        }
+        deleteCaches(fileName);
+        System.out.printf("%-44s %14d\n", "  " + name + " bytes", new File(fileName).length());
+    }
+
+    /**
+     * Deletes the files an ingest keeps next to the file it reads.
+     */
+    private static void deleteCaches(String fileName)
+    {
+        new File(IncrementalIndex.cacheNameFor(fileName)).delete();
+        new File(WordTable.tableNameFor(fileName)).delete();
+    }
+
+    /**
+     * Reports the heap kept by the vocabulary of a file, first counted
+     * into a WordCounter (a String per word) and then into an
+     * OffHeapVocabulary (primitive records and an off-heap arena).
+     */
+    private static void footprint(String fileName, String name) throws IOException
+    {
+        long before = usedHeap();
+        WordCounter counts = new WordAnalysis(fileName, IngestMode.MAPPED).getCounts();
+        long heap = usedHeap() - before;
+        System.out.printf("%-44s %14d %10.1f\n", "footprint.wordCounter " + name,
+                          heap, heap / (double) Math.max(1, counts.size()));
+        counts = null;
+
+        before = usedHeap();
+        OffHeapVocabulary vocabulary = OffHeapVocabulary.count(fileName);
+        heap = usedHeap() - before;
+        System.out.printf("%-44s %14d %10.1f %14d\n", "footprint.offHeap " + name,
+                          heap, heap / (double) Math.max(1, vocabulary.size()),
+                          vocabulary.getArenaBytes());
+        sink = vocabulary.size();
+    }
+
+    /**
+     * Returns the heap in use once the garbage collector has run.
+     */
+    private static long usedHeap()
+    {
+        java.lang.management.MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        // a few collections, since one may leave garbage behind
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    /**
+     * Warms up body, then measures it and prints one line of the report.
+     */
+    private static void measure(String name, Body body) throws IOException
+    {
+        for (int i = 0; i < WARMUP_RUNS; i++)
+            body.run();
+        long thread = Thread.currentThread().getId();
+        long ops = 0;
+        long allocated = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++)
+            ops += body.run();
+        long nanos = System.nanoTime() - start;
+        allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+        System.out.printf("%-44s %14.1f %10.2f %14.1f\n", name,
+                          ops / (nanos / 1e9),
+                          nanos / 1e6 / MEASURED_RUNS,
+                          ops == 0 ? 0.0 : allocated / (double) ops);
+    }
+
+    /**
+     * Returns the first limit cleaned-up words of a file.
+     */
+    private static ArrayList<String> tokens(String fileName, int limit) throws IOException
+    {
+        ArrayList<String> tokens = new ArrayList<String>();
+        new ByteTokenizer().tokenize(fileName, (buf, off, len, position) -> {
+            if (tokens.size() < limit)
+                tokens.add(new String(buf, off, len, java.nio.charset.StandardCharsets.ISO_8859_1));
+        });
+        return tokens;
+    }
+
+    /**
+     * Makes n distinct words in random order.  Each word is a random run
+     * of up to six letters followed by a five-letter code that is
+     * different for every word, so words share prefixes of many lengths.
+     * Their frequencies follow Zipf's law, like the words of a real book.
+     */
+    private static Word[] vocabulary(int n, Random random)
+    {
+        Word[] words = new Word[n];
+        char[] text = new char[11];
+        for (int i = 0; i < n; i++)
+        {
+            int length = random.nextInt(7);
+            for (int c = 0; c < length; c++)
+                text[c] = (char) ('a' + random.nextInt(26));
+            // 7919 is prime, so i -> 7919 i mod 26^5 is one to one
+            long code = (i * 7919L) % 11881376L;
+            for (int c = 0; c < 5; c++)
+            {
+                text[length + c] = (char) ('a' + code % 26);
+                code /= 26;
+            }
+            words[i] = new Word(new String(text, 0, length + 5), (int) Math.max(1, n / 10L / (i + 1)));
+        }
+        return words;
+    }
+
+    /**
+     * Writes about bytes bytes of text to file.  The words are random
+     * strings of letters, drawn so their frequencies follow Zipf's law like
+     * the words of a real book; the vocabulary grows with the size.
+     */
+    private static void generate(File file, long bytes, Random random) throws IOException
+    {
+        int vocabulary = (int) Math.min(2000000, Math.max(10000, bytes / 200));
+        byte[][] words = new byte[vocabulary][];
+        double[] cumulative = new double[vocabulary];
+        double sum = 0;
+        for (int i = 0; i < vocabulary; i++)
+        {
+            words[i] = new byte[2 + random.nextInt(9)];
+            for (int c = 0; c < words[i].length; c++)
+                words[i][c] = (byte) ('a' + random.nextInt(26));
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16))
+        {
+            long written = 0;
+            int column = 0;
+            while (written < bytes)
+            {
+                double target = random.nextDouble() * sum;
+                int index = Arrays.binarySearch(cumulative, target);
+                byte[] word = words[index < 0 ? Math.min(-index - 1, vocabulary - 1) : index];
+                out.write(word);
+                column += word.length + 1;
+                if (column > 70)
+                {
+                    out.write('\n');
+                    column = 0;
+                }
+                else
+                {
+                    out.write(' ');
+                }
+                written += word.length + 1;
+            }
+        }
+    }
+
+    /**
+     * Parses a size such as 512k, 16m or 1g.
+     */
+    private static long parseSize(String size)
+    {
+        size = size.trim().toLowerCase();
+        long unit = 1;
+        char last = size.charAt(size.length() - 1);
+        if (last == 'k' || last == 'm' || last == 'g')
+        {
+            unit = last == 'k' ? 1L << 10 : last == 'm' ? 1L << 20 : 1L << 30;
+            size = size.substring(0, size.length() - 1);
+        }
+        return Long.parseLong(size) * unit;
+    }
+}
@@ -0,0 +1,412 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Counts how often each word appears using an open-addressing hash
+ * table.  Each distinct word is given a dense id (0, 1, 2, ...) in the
+ * order it is first seen; the hash table maps a word to its id and the
+ * words and their counts are kept in parallel arrays indexed by id.
+ *
+ * Counting a word is amortized O(1).  The lexicographic order of the
+ * words is only produced when a caller asks for it.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class WordCounter
+{
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // hash table of (id + 1); 0 marks an empty slot
+    private int[] table;
+    private int mask;
+
+    // parallel arrays indexed by word id
+    private String[] words;
+    private int[] counts;
+    private int[] hashes;
+    private int size;
+
+    private long total;      // number of words counted, repetitions included
+    private int version;     // changes whenever a count changes
+
+    // kept only when IngestMetrics.ENABLED
+    private long lookups;    // words looked up in the table
+    private long probes;     // table slots examined by those lookups
+
+    /**
+     * Constructor for objects of class WordCounter.
+     */
+    public WordCounter()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for objects of class WordCounter that expects
+     * about the given number of distinct words.
+     *
+     * @param expected  the number of distinct words expected
+     */
+    public WordCounter(int expected)
+    {
+        int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) * 2;
+        table = new int[capacity];
+        mask = capacity - 1;
+        words = new String[capacity / 2];
+        counts = new int[capacity / 2];
+        hashes = new int[capacity / 2];
+    }
+
+    /**
+     * Adds one to the count of txt, adding txt if it has not been seen.
+     *
+     * @param txt  the word to be counted
+     * @return     the id of txt
+     */
+    public int add(String txt)
+    {
+        return add(txt, 1);
+    }
+
+    /**
+     * Adds amount to the count of txt, adding txt if it has not been seen.
+     *
+     * @param txt     the word to be counted
+     * @param amount  how many times txt appeared
+     * @return        the id of txt
+     */
+    public int add(String txt, int amount)
+    {
+        int h = hash(txt);
+        int slot = h & mask;
+        int entry;
+        if (IngestMetrics.ENABLED)
+            lookups++;
+        while ((entry = table[slot]) != 0)
+        {
+            if (IngestMetrics.ENABLED)
+                probes++;
+            int id = entry - 1;
+            if (hashes[id] == h && words[id].equals(txt))
+            {
+                count(id, amount);
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return insert(txt, h, slot, amount);
+    }
+
+    /**
+     * Adds one to the count of the word stored in buf[off .. off+len-1].
+     * The bytes must be ASCII.  A String is only created the first time
+     * a word is seen.
+     *
+     * @param buf  the bytes holding the word
+     * @param off  the position of the first byte of the word
+     * @param len  the number of bytes in the word
+     * @return     the id of the word
+     */
+    public int add(byte[] buf, int off, int len)
+    {
+        int h = hash(buf, off, len);
+        int slot = h & mask;
+        int entry;
+        if (IngestMetrics.ENABLED)
+            lookups++;
+        while ((entry = table[slot]) != 0)
+        {
+            if (IngestMetrics.ENABLED)
+                probes++;
+            int id = entry - 1;
+            if (hashes[id] == h && matches(words[id], buf, off, len))
+            {
+                count(id, 1);
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String txt = new String(buf, off, len, java.nio.charset.StandardCharsets.ISO_8859_1);
+        return insert(txt, h, slot, 1);
+    }
+
+    /**
+     * Adds every count in other to this counter.  The lookups and probes
+     * other made while counting are carried over; those made by the merge
+     * itself are not counted, so getLookups stays one per word counted.
+     *
+     * @param other  the counter to merge into this one
+     */
+    public void addAll(WordCounter other)
+    {
+        long lookupsBefore = lookups;
+        long probesBefore = probes;
+        for (int id = 0; id < other.size; id++)
+            add(other.words[id], other.counts[id]);
+        lookups = lookupsBefore + other.lookups;
+        probes = probesBefore + other.probes;
+    }
+
+    /**
+     * Returns the id of txt.
+     *
+     * @param txt  the word to be found
+     * @return     the id of txt, or -1 if txt has not been counted
+     */
+    public int indexOf(String txt)
+    {
+        int h = hash(txt);
+        int slot = h & mask;
+        int entry;
+        while ((entry = table[slot]) != 0)
+        {
+            int id = entry - 1;
+            if (hashes[id] == h && words[id].equals(txt))
+                return id;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns how many times txt was counted.
+     *
+     * @param txt  the word to be found
+     * @return     the count of txt, or 0 if it has not been counted
+     */
+    public int getCount(String txt)
+    {
+        int id = indexOf(txt);
+        return id < 0 ? 0 : counts[id];
+    }
+
+    /**
+     * Returns the word with the given id.
+     *
+     * @param id  the id of the word
+     * @return    the text of the word
+     */
+    public String wordAt(int id)
+    {
+        return words[id];
+    }
+
+    /**
+     * Returns the count of the word with the given id.
+     *
+     * @param id  the id of the word
+     * @return    how many times the word was counted
+     */
+    public int countAt(int id)
+    {
+        return counts[id];
+    }
+
+    /**
+     * Returns the number of distinct words.
+     *
+     * @return the number of distinct words counted
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of words counted, repetitions included.
+     *
+     * @return the total of all the counts
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Returns how many words have been looked up in the hash table while
+     * counting, including those of counters merged in by addAll but not
+     * the lookups of the merge.  Only counted when IngestMetrics.ENABLED.
+     *
+     * @return the number of lookups
+     */
+    public long getLookups()
+    {
+        return lookups;
+    }
+
+    /**
+     * Returns how many occupied table slots those lookups examined.  Only
+     * counted when IngestMetrics.ENABLED.
+     *
+     * @return the number of slots examined
+     */
+    public long getProbes()
+    {
+        return probes;
+    }
+
+    /**
+     * Returns a number that changes every time a count changes, so callers
+     * can tell whether anything they built from this counter is stale.
+     *
+     * @return the current version of the counts
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Creates a Word for every distinct word, in the order the words were
+     * first seen.
+     *
+     * @return the words and their counts, ordered by id
+     */
+    public ArrayList<Word> toList()
+    {
+        ArrayList<Word> list = new ArrayList<Word>(size);
+        for (int id = 0; id < size; id++)
+            list.add(new Word(words[id], counts[id]));
+        return list;
+    }
+
+    /**
+     * Creates a Word for every distinct word, in lexicographic order.
+     *
+     * @return the words and their counts, ordered lexicographically
+     */
+    public ArrayList<Word> toSortedList()
+    {
+        Word[] sorted = new Word[size];
+        for (int id = 0; id < size; id++)
+            sorted[id] = new Word(words[id], counts[id]);
+        Arrays.sort(sorted);
+        return new ArrayList<Word>(Arrays.asList(sorted));
+    }
+
+    /**
+     * Finds the k most frequent words without sorting all of them.  This
+     * takes O(n log k) time for n distinct words.
+     *
+     * @param k  the number of words wanted
+     * @return   the k most frequent words, most frequent first; words with
+     *           the same frequency are in lexicographic order
+     */
+    public ArrayList<Word> topWords(int k)
+    {
+        int[] best = TopK.select(size, k, this::ranksBefore);
+        ArrayList<Word> result = new ArrayList<Word>(best.length);
+        for (int id : best)
+            result.add(new Word(words[id], counts[id]));
+        return result;
+    }
+
+    /**
+     * Returns whether the word with id a comes before the word with id b
+     * when words are ordered by frequency.
+     */
+    private boolean ranksBefore(int a, int b)
+    {
+        if (counts[a] != counts[b])
+            return counts[a] > counts[b];
+        return words[a].compareTo(words[b]) < 0;
+    }
+
+    /**
+     * Records amount more occurrences of the word with the given id.
+     */
+    private void count(int id, int amount)
+    {
+        counts[id] += amount;
+        total += amount;
+        version++;
+    }
+
+    /**
+     * Stores a new word in the empty slot found by the probe.
+     */
+    private int insert(String txt, int h, int slot, int amount)
+    {
+        int id = size;
+        if (id == words.length)
+        {
+            words = Arrays.copyOf(words, id * 2);
+            counts = Arrays.copyOf(counts, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        words[id] = txt;
+        hashes[id] = h;
+        table[slot] = id + 1;
+        size++;
+        count(id, amount);
+        if (size * 2 > table.length)
+            rehash();
+        return id;
+    }
+
+    /**
+     * Doubles the hash table, keeping it at most half full.
+     */
+    private void rehash()
+    {
+        table = new int[table.length * 2];
+        mask = table.length - 1;
+        for (int id = 0; id < size; id++)
+        {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Returns whether txt has exactly the characters in buf[off .. off+len-1].
+     */
+    private static boolean matches(String txt, byte[] buf, int off, int len)
+    {
+        if (txt.length() != len)
+            return false;
+        for (int i = 0; i < len; i++)
+        {
+            if (txt.charAt(i) != (char) (buf[off + i] & 0xff))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the characters of txt.  Gives the same value as
+     * hash(byte[], int, int) for the same ASCII word.
+     */
+    static int hash(String txt)
+    {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < txt.length(); i++)
+            h = (h ^ txt.charAt(i)) * 0x01000193;
+        return mix(h);
+    }
+
+    /**
+     * Hashes the bytes buf[off .. off+len-1].
+     */
+    static int hash(byte[] buf, int off, int len)
+    {
+        int h = 0x811c9dc5;
+        for (int i = off; i < off + len; i++)
+            h = (h ^ (buf[i] & 0xff)) * 0x01000193;
+        return mix(h);
+    }
+
+    /**
+     * Spreads the bits of h so the low bits used by the table are well mixed.
+     */
+    private static int mix(int h)
+    {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
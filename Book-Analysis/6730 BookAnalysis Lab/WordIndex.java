@@ -0,0 +1,220 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Saves analyzed word counts to a binary index file and loads them back,
+ * so a book does not have to be read again every time it is analyzed.
+ *
+ * The index holds, in order:
+ *     a header: "WIDX", the format version, and the size, modification
+ *               time and checksum of the text file it was made from,
+ *               then the number of distinct words and the total count;
+ *     the frequencies, one int per word;
+ *     the words in lexicographic order, front coded: each word is stored
+ *               as the length of the prefix it shares with the word before
+ *               it, the length of the rest, and the rest of its bytes.
+ *
+ * Lengths are stored as variable-length integers.  The index is read
+ * through a memory map.  The checksum is a CRC32C of the whole text file,
+ * so an edit that keeps the size and has its modification time put back,
+ * as archive tools and copies that keep times do, is still caught.
+ * Reading the file for it runs at memory speed, far faster than
+ * tokenizing it again.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class WordIndex
+{
+    private static final int MAGIC = 0x57494458;   // "WIDX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 44;
+    private static final int BLOCK = 1 << 20;      // bytes read at a time for the checksum
+
+    /**
+     * Returns the name of the index file kept next to a text file.
+     *
+     * @param sourceName  the pathname of the text file
+     * @return            the pathname of its index file
+     */
+    public static String indexNameFor(String sourceName)
+    {
+        return sourceName + ".widx";
+    }
+
+    /**
+     * Writes counts to an index file for the text file sourceName.  The
+     * index is written to a temporary file first and then moved into
+     * place, so a reader never sees a partly written index.
+     *
+     * @param counts      the counts of the words in the text file
+     * @param sourceName  the pathname of the text file
+     * @param indexName   the pathname of the index file
+     * @throws IOException the index cannot be written
+     */
+    public static void save(WordCounter counts, String sourceName, String indexName)
+        throws IOException
+    {
+        File source = new File(sourceName);
+        File index = new File(indexName);
+        File temp = new File(index.getPath() + ".tmp");
+
+        int n = counts.size();
+        Integer[] order = new Integer[n];
+        for (int id = 0; id < n; id++)
+            order[id] = id;
+        java.util.Arrays.sort(order, (a, b) -> counts.wordAt(a).compareTo(counts.wordAt(b)));
+
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(temp), 1 << 16)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source.length());
+            out.writeLong(source.lastModified());
+            out.writeLong(checksum(source));
+            out.writeInt(n);
+            out.writeLong(counts.getTotal());
+            for (int i = 0; i < n; i++)
+                out.writeInt(counts.countAt(order[i]));
+            String previous = "";
+            for (int i = 0; i < n; i++)
+            {
+                String word = counts.wordAt(order[i]);
+                int shared = 0;
+                int most = Math.min(previous.length(), word.length());
+                while (shared < most && previous.charAt(shared) == word.charAt(shared))
+                    shared++;
+                writeVarInt(out, shared);
+                writeVarInt(out, word.length() - shared);
+                for (int c = shared; c < word.length(); c++)
+                    out.write(word.charAt(c));
+                previous = word;
+            }
+        }
+        Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the counts saved in an index file, if the index was made
+     * from the text file as it is now.
+     *
+     * @param sourceName  the pathname of the text file
+     * @param indexName   the pathname of the index file
+     * @return            the saved counts, with ids in lexicographic order,
+     *                    or null if there is no index or it is out of date
+     * @throws IOException the index exists but cannot be read
+     */
+    public static WordCounter load(String sourceName, String indexName) throws IOException
+    {
+        File source = new File(sourceName);
+        File index = new File(indexName);
+        if (!source.isFile() || !index.isFile() || index.length() < HEADER_SIZE)
+            return null;
+        try (RandomAccessFile file = new RandomAccessFile(index, "r");
+             FileChannel channel = file.getChannel())
+        {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.getInt() != MAGIC || map.getInt() != VERSION ||
+                map.getLong() != source.length() ||
+                map.getLong() != source.lastModified() ||
+                map.getLong() != checksum(source))
+                return null;
+            int n = map.getInt();
+            long total = map.getLong();
+            if (n < 0 || (long) n * 4 > map.remaining())
+                return null;
+
+            int[] frequencies = new int[n];
+            map.asIntBuffer().get(frequencies);
+            map.position(map.position() + n * 4);
+
+            WordCounter counts = new WordCounter(n);
+            byte[] word = new byte[64];
+            for (int i = 0; i < n; i++)
+            {
+                int shared = readVarInt(map);
+                int rest = readVarInt(map);
+                if (shared + rest > word.length)
+                    word = java.util.Arrays.copyOf(word, Math.max(word.length * 2, shared + rest));
+                map.get(word, shared, rest);
+                counts.add(new String(word, 0, shared + rest,
+                                      java.nio.charset.StandardCharsets.ISO_8859_1),
+                           frequencies[i]);
+            }
+            if (counts.getTotal() != total)
+                return null;
+            return counts;
+        }
+        catch (java.nio.BufferUnderflowException | IndexOutOfBoundsException e)
+        {
+            // a truncated or damaged index is treated as missing
+            return null;
+        }
+    }
+
+    /**
+     * Computes a CRC32C of every byte of a file.
+     */
+    private static long checksum(File source) throws IOException
+    {
+        CRC32C crc = new CRC32C();
+        try (RandomAccessFile file = new RandomAccessFile(source, "r");
+             FileChannel channel = file.getChannel())
+        {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BLOCK);
+            long pos = 0;
+            int n;
+            while ((n = channel.read(buf, pos)) > 0)
+            {
+                pos += n;
+                buf.flip();
+                crc.update(buf);
+                buf.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes value in 7-bit groups, low group first; the high bit of each
+     * byte is set when more groups follow.
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7f) != 0)
+        {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads a value written by writeVarInt.
+     */
+    private static int readVarInt(ByteBuffer in)
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            b = in.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+}
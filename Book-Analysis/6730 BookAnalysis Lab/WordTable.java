@@ -0,0 +1,593 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A table of words and their frequencies in lexicographic order, kept on
+ * disk and read a block at a time, for vocabularies too large to hold in
+ * memory.  Looking up a word reads O(log n) block heads and one block;
+ * nothing but the file's footer is kept in memory.  A cursor starts with
+ * a small read, enough for the head of a block, and reads more at a time
+ * only as it keeps going, so a lookup reads a few hundred bytes per block
+ * it looks at.
+ *
+ * The table holds, in order:
+ *     a header: "WTAB" and the format version;
+ *     the words, in blocks of BLOCK_WORDS: each word is stored as the
+ *               length of the prefix it shares with the word before it
+ *               in its block, the length of the rest, the rest of its
+ *               bytes and its frequency; the first word of a block shares
+ *               nothing, so any block can be read on its own;
+ *     for every block, its offset and the total of the frequencies of
+ *               the words before it, one long each, so the total of
+ *               any number of first words takes reading one block;
+ *     a footer: where the offsets start, the number of blocks, the
+ *               number of words and the total of the frequencies.
+ * Lengths and frequencies are variable-length integers, as in WordIndex.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class WordTable implements AutoCloseable
+{
+    /** Words per block; every block starts with a whole word. */
+    public static final int BLOCK_WORDS = 64;
+
+    private static final int MAGIC = 0x57544142;   // "WTAB"
+    private static final int VERSION = 2;
+    private static final int ENTRY_SIZE = 16;   // a block's offset and total before it
+    private static final int HEADER_SIZE = 8;
+    private static final int FOOTER_SIZE = 28;
+    private static final int FIRST_READ = 256;      // bytes a cursor reads after a seek ...
+    private static final int LARGEST_READ = 1 << 16;   // ... growing up to this as it goes on
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long offsets;     // where the block offsets start
+    private final int blocks;
+    private final long size;        // the number of words
+    private final long total;       // the total of the frequencies
+
+    /**
+     * Constructor for a table read from an open file.
+     */
+    private WordTable(RandomAccessFile file, long offsets, int blocks, long size, long total)
+    {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.offsets = offsets;
+        this.blocks = blocks;
+        this.size = size;
+        this.total = total;
+    }
+
+    /**
+     * Returns the name of the table kept next to a text file.
+     *
+     * @param sourceName  the pathname of the text file
+     * @return            the pathname of its table
+     */
+    public static String tableNameFor(String sourceName)
+    {
+        return sourceName + ".wtab";
+    }
+
+    /**
+     * Opens a table.
+     *
+     * @param tableName  the pathname of the table
+     * @return           the table; it must be closed when done with
+     * @throws IOException the table cannot be read or is damaged
+     */
+    public static WordTable open(String tableName) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(tableName, "r");
+        try
+        {
+            long length = file.length();
+            if (length < HEADER_SIZE + FOOTER_SIZE || file.readInt() != MAGIC ||
+                file.readInt() != VERSION)
+                throw new IOException(tableName + " is not a word table");
+            file.seek(length - FOOTER_SIZE);
+            long offsets = file.readLong();
+            int blocks = file.readInt();
+            long size = file.readLong();
+            long total = file.readLong();
+            if (blocks < 0 || offsets < HEADER_SIZE ||
+                offsets + (long) ENTRY_SIZE * blocks != length - FOOTER_SIZE ||
+                size > (long) blocks * BLOCK_WORDS)
+                throw new IOException(tableName + " is damaged");
+            return new WordTable(file, offsets, blocks, size, total);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of different words.
+     *
+     * @return the number of words in the table
+     */
+    public long size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of words counted, repetitions included.
+     *
+     * @return the total of all the frequencies
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Returns the frequency of a word.
+     *
+     * @param txt  the word to be found
+     * @return     its frequency, or 0 if it is not in the table
+     * @throws IOException the table cannot be read
+     */
+    public int getCount(String txt) throws IOException
+    {
+        byte[] wanted = txt.getBytes(StandardCharsets.ISO_8859_1);
+        Cursor cursor = cursor(txt);
+        if (cursor.next() && Arrays.equals(cursor.word, 0, cursor.length, wanted, 0, wanted.length))
+            return cursor.count();
+        return 0;
+    }
+
+    /**
+     * Returns the place of a word in lexicographic order.
+     *
+     * @param txt  the word to be found
+     * @return     its place, from 0, or -1 if it is not in the table
+     * @throws IOException the table cannot be read
+     */
+    public long rankOf(String txt) throws IOException
+    {
+        byte[] wanted = txt.getBytes(StandardCharsets.ISO_8859_1);
+        Cursor cursor = cursor(txt);
+        if (cursor.next() && Arrays.equals(cursor.word, 0, cursor.length, wanted, 0, wanted.length))
+            return cursor.rank();
+        return -1;
+    }
+
+    /**
+     * Returns the word at a place in lexicographic order.
+     *
+     * @param rank  the place, from 0
+     * @return      the word there, with its frequency
+     * @throws IOException the table cannot be read
+     */
+    public Word wordAt(long rank) throws IOException
+    {
+        if (rank < 0 || rank >= size)
+            throw new IndexOutOfBoundsException("no word at " + rank);
+        Cursor cursor = new Cursor();
+        cursor.seek((int) (rank / BLOCK_WORDS));
+        for (long i = rank % BLOCK_WORDS; i >= 0; i--)
+            cursor.next();
+        return new Word(cursor.word(), cursor.count());
+    }
+
+    /**
+     * Adds up the frequencies of the first words in lexicographic order.
+     *
+     * @param n  the number of words
+     * @return   the total frequency of the first n words; all of them if
+     *           n is at least size()
+     * @throws IOException the table cannot be read
+     */
+    public long totalOfFirst(long n) throws IOException
+    {
+        if (n <= 0)
+            return 0;
+        if (n >= size)
+            return total;
+        int block = (int) (n / BLOCK_WORDS);
+        Cursor cursor = new Cursor();
+        long sum = cursor.seek(block);
+        for (long i = n % BLOCK_WORDS; i > 0; i--)
+        {
+            cursor.next();
+            sum += cursor.count();
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the words that start with a prefix.
+     *
+     * @param prefix  the start of the words wanted
+     * @param limit   the most words wanted
+     * @return        up to limit words starting with prefix, in
+     *                lexicographic order, with their frequencies
+     * @throws IOException the table cannot be read
+     */
+    public ArrayList<Word> wordsStartingWith(String prefix, int limit) throws IOException
+    {
+        ArrayList<Word> found = new ArrayList<Word>();
+        Cursor cursor = cursor(prefix);
+        while (found.size() < limit && cursor.next() && cursor.startsWith(prefix))
+            found.add(new Word(cursor.word(), cursor.count()));
+        return found;
+    }
+
+    /**
+     * Adds up the frequencies of the words that start with a prefix.
+     *
+     * @param prefix  the start of the words wanted
+     * @return        their total frequency
+     * @throws IOException the table cannot be read
+     */
+    public long totalStartingWith(String prefix) throws IOException
+    {
+        long sum = 0;
+        Cursor cursor = cursor(prefix);
+        while (cursor.next() && cursor.startsWith(prefix))
+            sum += cursor.count();
+        return sum;
+    }
+
+    /**
+     * Returns a cursor over the words of the table in lexicographic order,
+     * starting at the first word that does not come before from.
+     *
+     * @param from  where to start; "" starts at the first word
+     * @return      the cursor; call next before reading each word
+     * @throws IOException the table cannot be read
+     */
+    public Cursor cursor(String from) throws IOException
+    {
+        byte[] wanted = from.getBytes(StandardCharsets.ISO_8859_1);
+        // find the last block whose first word does not come after from
+        int low = 0;
+        int high = blocks - 1;
+        int block = 0;
+        Cursor cursor = new Cursor();
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            cursor.seek(mid);
+            cursor.next();
+            if (compare(cursor.word, cursor.length, wanted) <= 0)
+            {
+                block = mid;
+                low = mid + 1;
+            }
+            else
+                high = mid - 1;
+        }
+        cursor.seek(block);
+        cursor.skipBefore(wanted);
+        return cursor;
+    }
+
+    /**
+     * Closes the file of the table.
+     *
+     * @throws IOException the file cannot be closed
+     */
+    public void close() throws IOException
+    {
+        file.close();
+    }
+
+    /**
+     * Compares a word held in bytes with another, as unsigned bytes, which
+     * is the order of their Strings.
+     */
+    private static int compare(byte[] a, int length, byte[] b)
+    {
+        return Arrays.compareUnsigned(a, 0, length, b, 0, b.length);
+    }
+
+    /**
+     * Reads the words of the table in order, from some block onward.
+     */
+    public class Cursor
+    {
+        private ByteBuffer buf = ByteBuffer.allocate(FIRST_READ);
+        private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        private long filePos;           // the file offset of the end of buf's data
+        private int reads;              // reads into buf since the last seek
+        private int block;              // the block the next word is in
+        private int inBlock;            // words read from that block
+        private long left;              // words of the table not yet read
+        private byte[] word = new byte[64];
+        private int length;
+        private int count;
+        private boolean pushedBack;     // the current word is read again by next
+
+        /**
+         * Moves the cursor to the start of a block.  The next read fills
+         * only FIRST_READ bytes.
+         *
+         * @return the total of the frequencies of the words before the block
+         */
+        long seek(int b) throws IOException
+        {
+            block = b;
+            inBlock = 0;
+            left = size - (long) b * BLOCK_WORDS;
+            pushedBack = false;
+            entry.clear();
+            readFully(entry, offsets + (long) ENTRY_SIZE * b);
+            filePos = entry.getLong(0);
+            if (buf.capacity() > FIRST_READ)
+                buf = ByteBuffer.allocate(FIRST_READ);
+            buf.clear();
+            buf.flip();
+            reads = 0;
+            return entry.getLong(8);
+        }
+
+        /**
+         * Reads the words before wanted, so that the next word read is
+         * the first one that does not come before it.
+         */
+        void skipBefore(byte[] wanted) throws IOException
+        {
+            while (next())
+            {
+                if (compare(word, length, wanted) >= 0)
+                {
+                    pushedBack = true;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Moves to the next word.
+         *
+         * @return false if there are no more words
+         * @throws IOException the table cannot be read
+         */
+        public boolean next() throws IOException
+        {
+            if (pushedBack)
+            {
+                pushedBack = false;
+                return true;
+            }
+            if (left <= 0)
+                return false;
+            if (inBlock == BLOCK_WORDS)
+            {
+                block++;
+                inBlock = 0;
+            }
+            int shared = readVarInt();
+            int rest = readVarInt();
+            if (inBlock == 0)
+                shared = 0;
+            if (shared + rest > word.length)
+                word = Arrays.copyOf(word, Math.max(word.length * 2, shared + rest));
+            for (int i = 0; i < rest; i++)
+                word[shared + i] = readByte();
+            length = shared + rest;
+            count = readVarInt();
+            inBlock++;
+            left--;
+            return true;
+        }
+
+        /**
+         * Returns the current word.
+         *
+         * @return the word
+         */
+        public String word()
+        {
+            return new String(word, 0, length, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * Returns the frequency of the current word.
+         *
+         * @return the frequency
+         */
+        public int count()
+        {
+            return count;
+        }
+
+        /**
+         * Returns the place of the current word in lexicographic order.
+         *
+         * @return the place, from 0
+         */
+        public long rank()
+        {
+            return (long) block * BLOCK_WORDS + inBlock - 1;
+        }
+
+        /**
+         * Returns whether the current word starts with prefix.
+         *
+         * @param prefix  the start wanted
+         * @return        true if the word starts with prefix
+         */
+        public boolean startsWith(String prefix)
+        {
+            if (prefix.length() > length)
+                return false;
+            for (int i = 0; i < prefix.length(); i++)
+            {
+                if ((word[i] & 0xff) != prefix.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        private byte readByte() throws IOException
+        {
+            if (!buf.hasRemaining())
+            {
+                // a cursor that keeps reading is scanning, so read more at a time
+                if (reads > 0 && buf.capacity() < LARGEST_READ)
+                    buf = ByteBuffer.allocate(Math.min(buf.capacity() * 4, LARGEST_READ));
+                reads++;
+                buf.clear();
+                int n = channel.read(buf, filePos);
+                if (n <= 0)
+                    throw new IOException("word table ends too soon");
+                filePos += n;
+                buf.flip();
+            }
+            return buf.get();
+        }
+
+        private int readVarInt() throws IOException
+        {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do
+            {
+                b = readByte();
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+
+    /**
+     * Reads bytes into buf from the given offset until buf is full.
+     */
+    private void readFully(ByteBuffer buf, long pos) throws IOException
+    {
+        while (buf.hasRemaining())
+        {
+            if (channel.read(buf, pos + buf.position()) <= 0)
+                throw new IOException("word table ends too soon");
+        }
+    }
+
+    /**
+     * Writes a table one word at a time, in lexicographic order.
+     */
+    public static class Writer implements AutoCloseable
+    {
+        private final DataOutputStream out;
+        private long[] blockOffsets = new long[64];
+        private long[] blockTotals = new long[64];   // total before each block
+        private int blocks;
+        private long written;
+        private byte[] previous = new byte[64];
+        private int previousLength;
+        private long size;
+        private long total;
+
+        /**
+         * Constructor for a writer of a new table.
+         *
+         * @param tableName  the pathname of the table
+         * @throws IOException the table cannot be created
+         */
+        public Writer(String tableName) throws IOException
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tableName),
+                                                                1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            written = HEADER_SIZE;
+        }
+
+        /**
+         * Adds the next word.  Words must come in increasing order.
+         *
+         * @param word    the bytes of the word
+         * @param length  how many of them are used
+         * @param count   its frequency
+         * @throws IOException the table cannot be written
+         */
+        public void add(byte[] word, int length, int count) throws IOException
+        {
+            int shared = 0;
+            if (size % BLOCK_WORDS == 0)
+            {
+                if (blocks == blockOffsets.length)
+                {
+                    blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                    blockTotals = Arrays.copyOf(blockTotals, blocks * 2);
+                }
+                blockOffsets[blocks] = written;
+                blockTotals[blocks] = total;
+                blocks++;
+            }
+            else
+            {
+                int most = Math.min(previousLength, length);
+                while (shared < most && previous[shared] == word[shared])
+                    shared++;
+            }
+            written += writeVarInt(out, shared);
+            written += writeVarInt(out, length - shared);
+            out.write(word, shared, length - shared);
+            written += length - shared;
+            written += writeVarInt(out, count);
+            if (length > previous.length)
+                previous = Arrays.copyOf(previous, Math.max(previous.length * 2, length));
+            System.arraycopy(word, 0, previous, 0, length);
+            previousLength = length;
+            size++;
+            total += count;
+        }
+
+        /**
+         * Writes the block offsets and the footer, and closes the table.
+         *
+         * @throws IOException the table cannot be written
+         */
+        public void close() throws IOException
+        {
+            long offsets = written;
+            for (int b = 0; b < blocks; b++)
+            {
+                out.writeLong(blockOffsets[b]);
+                out.writeLong(blockTotals[b]);
+            }
+            out.writeLong(offsets);
+            out.writeInt(blocks);
+            out.writeLong(size);
+            out.writeLong(total);
+            out.close();
+        }
+    }
+
+    /**
+     * Writes value in 7-bit groups, low group first; the high bit of each
+     * byte is set when more groups follow.
+     *
+     * @return the number of bytes written
+     */
+    static int writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        int n = 1;
+        while ((value & ~0x7f) != 0)
+        {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+            n++;
+        }
+        out.write(value);
+        return n;
+    }
+}
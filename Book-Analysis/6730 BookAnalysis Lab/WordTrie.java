@@ -0,0 +1,203 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A trie over the words of a book, built once from the words in
+ * lexicographic order.  Every node stores the label of the edge into it,
+ * where its children start, how many children it has, and the range of
+ * word ranks (positions in lexicographic order) below it.  The children
+ * of a node are stored next to each other, sorted by label.
+ *
+ * Looking up a word takes O(length of the word) steps.  Because the words
+ * below a node are exactly the ranks lo .. hi-1, listing the words with a
+ * prefix takes one walk down the trie, and their total frequency is a
+ * difference of two prefix sums.
+ *
+ * @author  Varun Bhupathi
+ * @version October 18, 2026
+ */
+public class WordTrie
+{
+    private Word[] sorted;        // the words in lexicographic order
+    private long[] totals;        // totals[r] = sum of frequencies of ranks 0 .. r-1
+
+    // parallel arrays indexed by node; node 0 is the root
+    private byte[] label;
+    private int[] firstChild;
+    private int[] childCount;
+    private int[] low;            // first rank below the node
+    private int[] high;           // one past the last rank below the node
+    private int nodes;
+
+    /**
+     * Builds the trie.
+     *
+     * @param words  the words of the book in lexicographic order
+     */
+    public WordTrie(ArrayList<Word> words)
+    {
+        sorted = words.toArray(new Word[0]);
+        totals = new long[sorted.length + 1];
+        for (int r = 0; r < sorted.length; r++)
+            totals[r + 1] = totals[r] + sorted[r].getFrequency();
+
+        int capacity = 16;
+        label = new byte[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        low = new int[capacity];
+        high = new int[capacity];
+        nodes = 1;
+        low[0] = 0;
+        high[0] = sorted.length;
+
+        // breadth first, so the children of each node are allocated together
+        int[] depth = new int[capacity];
+        for (int node = 0; node < nodes; node++)
+        {
+            int d = depth[node];
+            int r = low[node];
+            if (r < high[node] && sorted[r].getWord().length() == d)
+                r++;   // the word that ends at this node
+            firstChild[node] = nodes;
+            while (r < high[node])
+            {
+                char c = sorted[r].getWord().charAt(d);
+                int end = r + 1;
+                while (end < high[node] && sorted[end].getWord().charAt(d) == c)
+                    end++;
+                if (nodes == label.length)
+                {
+                    capacity = label.length * 2;
+                    label = Arrays.copyOf(label, capacity);
+                    firstChild = Arrays.copyOf(firstChild, capacity);
+                    childCount = Arrays.copyOf(childCount, capacity);
+                    low = Arrays.copyOf(low, capacity);
+                    high = Arrays.copyOf(high, capacity);
+                    depth = Arrays.copyOf(depth, capacity);
+                }
+                label[nodes] = (byte) c;
+                low[nodes] = r;
+                high[nodes] = end;
+                depth[nodes] = d + 1;
+                nodes++;
+                childCount[node]++;
+                r = end;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of txt in lexicographic order.
+     *
+     * @param txt  the word to be found
+     * @return     the rank of txt, or -1 if txt is not in the trie
+     */
+    public int rankOf(String txt)
+    {
+        int node = find(txt);
+        if (node < 0 || low[node] == high[node] ||
+            sorted[low[node]].getWord().length() != txt.length())
+            return -1;
+        return low[node];
+    }
+
+    /**
+     * Returns how often txt appears.
+     *
+     * @param txt  the word to be found
+     * @return     the frequency of txt, or 0 if txt is not in the trie
+     */
+    public int getFrequency(String txt)
+    {
+        int rank = rankOf(txt);
+        return rank < 0 ? 0 : sorted[rank].getFrequency();
+    }
+
+    /**
+     * Returns every word that starts with prefix.
+     *
+     * @param prefix  the start of the words wanted
+     * @return        the words starting with prefix, in lexicographic order
+     */
+    public ArrayList<Word> wordsStartingWith(String prefix)
+    {
+        int node = find(prefix);
+        ArrayList<Word> result = new ArrayList<Word>();
+        if (node >= 0)
+            result.addAll(Arrays.asList(sorted).subList(low[node], high[node]));
+        return result;
+    }
+
+    /**
+     * Returns how many different words start with prefix.
+     *
+     * @param prefix  the start of the words wanted
+     * @return        the number of words starting with prefix
+     */
+    public int countStartingWith(String prefix)
+    {
+        int node = find(prefix);
+        return node < 0 ? 0 : high[node] - low[node];
+    }
+
+    /**
+     * Returns the total frequency of the words that start with prefix.
+     *
+     * @param prefix  the start of the words wanted
+     * @return        the sum of the frequencies of the words starting
+     *                with prefix
+     */
+    public long totalStartingWith(String prefix)
+    {
+        int node = find(prefix);
+        return node < 0 ? 0 : totals[high[node]] - totals[low[node]];
+    }
+
+    /**
+     * Returns the number of nodes in the trie.
+     *
+     * @return the number of nodes, including the root
+     */
+    public int getNodeCount()
+    {
+        return nodes;
+    }
+
+    /**
+     * Walks down the trie along the characters of txt.
+     *
+     * @return the node reached, or -1 if there is no such path
+     */
+    private int find(String txt)
+    {
+        int node = 0;
+        for (int i = 0; i < txt.length() && node >= 0; i++)
+            node = child(node, txt.charAt(i));
+        return node;
+    }
+
+    /**
+     * Finds the child of node whose label is c with a binary search.
+     *
+     * @return the child, or -1 if node has no such child
+     */
+    private int child(int node, char c)
+    {
+        if (c > 0x7f)
+            return -1;
+        int lo = firstChild[node];
+        int hi = lo + childCount[node] - 1;
+        while (lo <= hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (label[mid] == c)
+                return mid;
+            if (label[mid] < c)
+                lo = mid + 1;
+            else
+                hi = mid - 1;
+        }
+        return -1;
+    }
+}